@@ -0,0 +1,137 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hostile inputs at growing sizes: lexing is linear in the size if the chars counter, in chars/s, stays flat.
+ * The hardened engine bounds the token length, the stream keeps at most that many chars of a token in memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdversarialBenchmark {
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    public enum Input {
+        /**
+         * One comment which is never closed
+         */
+        UNTERMINATED_COMMENT,
+        /**
+         * Junk chars, one error token each unless coalesced
+         */
+        JUNK_RUN,
+        /**
+         * A string literal on one endless line
+         */
+        UNTERMINATED_STRING,
+        /**
+         * One identifier over the whole input
+         */
+        LONG_IDENTIFIER
+    }
+
+    @Param({"switch", "table", "hardened"})
+    public String engine;
+
+    @Param({"UNTERMINATED_COMMENT", "JUNK_RUN", "UNTERMINATED_STRING", "LONG_IDENTIFIER"})
+    public Input input;
+
+    @Param({"262144", "1048576", "4194304", "16777216"})
+    public int size;
+
+    private Engine lexer;
+    private String source;
+    private MethodHandle newStream;
+    private MethodHandle next;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        lexer = "hardened".equals(engine) ? Engine.hardened("table", MAX_TOKEN_LENGTH) : Engine.of(engine);
+        source = generate(input, size);
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Class<?> stream = Class.forName("TokenStream");
+        newStream = lookup.findConstructor(stream, MethodType.methodType(void.class, Reader.class, int.class))
+                .asType(MethodType.methodType(Object.class, Reader.class, int.class));
+        next = lookup.findVirtual(stream, "next", MethodType.methodType(boolean.class))
+                .asType(MethodType.methodType(boolean.class, Object.class));
+    }
+
+    static String generate(Input input, int size) {
+        StringBuilder sb = new StringBuilder(size);
+        switch (input) {
+            case UNTERMINATED_COMMENT:
+                sb.append("/*");
+                break;
+            case UNTERMINATED_STRING:
+                sb.append('"');
+                break;
+            default:
+        }
+        char fill = input == Input.JUNK_RUN ? '#' : 'a';
+        while (sb.length() < size) {
+            sb.append(fill);
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public Object tokenize(Counters counters) throws Throwable {
+        Object table = lexer.tokenize(source);
+        counters.chars += source.length();
+        counters.tokens += lexer.size(table);
+        return table;
+    }
+
+    /**
+     * Pull-based lexing, the engine parameter only decides if the token length is bounded
+     */
+    @Benchmark
+    public int stream(Counters counters) throws Throwable {
+        int maxTokenLength = "hardened".equals(engine) ? MAX_TOKEN_LENGTH : Integer.MAX_VALUE;
+        Object tokens = (Object) newStream.invokeExact((Reader) new StringReader(source), maxTokenLength);
+        int count = 0;
+        while ((boolean) next.invokeExact(tokens)) {
+            count++;
+        }
+        counters.chars += source.length();
+        counters.tokens += count;
+        return count;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long chars;
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            chars = 0;
+            tokens = 0;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generated Java-like sources, every kind stresses another part of the lexer.
+ * The same kind, size and seed always give the same text.
+ */
+public class Corpus {
+    public enum Kind {
+        /**
+         * Declarations and calls, mostly identifiers, keywords and separators
+         */
+        IDENTIFIERS,
+        /**
+         * Tables of int, hex, octal, binary and floating point constants
+         */
+        NUMBERS,
+        /**
+         * License headers, Javadoc and line comments around a little code
+         */
+        COMMENTS,
+        /**
+         * Long string literals with embedded SQL and JSON
+         */
+        STRINGS,
+        /**
+         * Junk chars, unterminated literals and malformed numbers like code.java
+         */
+        ERRORS,
+        /**
+         * All of the above in turns
+         */
+        MIXED
+    }
+
+    private static final String[] NAMES = {
+            "index", "count", "buffer", "result", "value", "tokenStart", "position", "state", "source", "sink",
+            "customerRepository", "orderService", "i", "j", "x", "name", "map", "list", "builder", "request"
+    };
+    private static final String[] TYPES = {"int", "long", "String", "List<String>", "Map<String, Integer>", "char[]", "boolean"};
+    private static final String[] WORDS = {
+            "lorem", "ipsum", "dolor", "sit", "amet", "the", "lexer", "returns", "token", "of", "a", "given", "type"
+    };
+    private static final String[] JUNK = {"/=#&,.+\n/\\", "#", "@@", "`", "0x", "08", "1__", "'ab'", "\"open\n", "'\n", "..", "\\u"};
+
+    public static String generate(Kind kind, int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(size + 1024);
+        int turn = 0;
+        while (sb.length() < size) {
+            Kind next = kind == Kind.MIXED ? Kind.values()[turn++ % (Kind.values().length - 1)] : kind;
+            switch (next) {
+                case IDENTIFIERS:
+                    identifiers(sb, random);
+                    break;
+                case NUMBERS:
+                    numbers(sb, random);
+                    break;
+                case COMMENTS:
+                    comments(sb, random);
+                    break;
+                case STRINGS:
+                    strings(sb, random);
+                    break;
+                default:
+                    errors(sb, random);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void identifiers(StringBuilder sb, Random random) {
+        sb.append("    public ").append(pick(TYPES, random)).append(' ').append(pick(NAMES, random)).append('(')
+                .append(pick(TYPES, random)).append(' ').append(pick(NAMES, random)).append(") {\n");
+        for (int i = random.nextInt(6); i >= 0; i--) {
+            sb.append("        if (").append(pick(NAMES, random)).append(" != null && ").append(pick(NAMES, random))
+                    .append(".size() > ").append(pick(NAMES, random)).append(") {\n            ")
+                    .append(pick(NAMES, random)).append(" = ").append(pick(NAMES, random)).append('.')
+                    .append(pick(NAMES, random)).append('(').append(pick(NAMES, random)).append(", this);\n        }\n");
+        }
+        sb.append("        return ").append(random.nextBoolean() ? "true" : "null").append(";\n    }\n");
+    }
+
+    private static void numbers(StringBuilder sb, Random random) {
+        sb.append("    static final long[] TABLE_").append(random.nextInt(1000)).append(" = {\n");
+        for (int row = 0; row < 8; row++) {
+            sb.append("           ");
+            for (int column = 0; column < 8; column++) {
+                switch (random.nextInt(5)) {
+                    case 0:
+                        sb.append(' ').append(random.nextInt(1000000));
+                        break;
+                    case 1:
+                        sb.append(" 0x").append(Integer.toHexString(random.nextInt())).append('L');
+                        break;
+                    case 2:
+                        sb.append(" 0").append(Integer.toOctalString(random.nextInt(4096)));
+                        break;
+                    case 3:
+                        sb.append(" 0b").append(Integer.toBinaryString(random.nextInt(256)));
+                        break;
+                    default:
+                        sb.append(' ').append(random.nextInt(1000)).append('.').append(random.nextInt(1000)).append('f');
+                }
+                sb.append(',');
+            }
+            sb.append('\n');
+        }
+        sb.append("    };\n");
+    }
+
+    private static void comments(StringBuilder sb, Random random) {
+        sb.append("/*\n");
+        for (int i = random.nextInt(20) + 5; i >= 0; i--) {
+            sb.append(" * ");
+            sentence(sb, random, 14);
+            sb.append('\n');
+        }
+        sb.append(" */\n");
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            sb.append("    // ");
+            sentence(sb, random, 10);
+            sb.append("\n    ").append(pick(NAMES, random)).append("++;\n");
+        }
+    }
+
+    private static void strings(StringBuilder sb, Random random) {
+        sb.append("    String ").append(pick(NAMES, random)).append(" = \"SELECT ").append(pick(NAMES, random))
+                .append(", ").append(pick(NAMES, random)).append(" FROM ").append(pick(NAMES, random))
+                .append(" WHERE ").append(pick(NAMES, random)).append(" = ? AND name LIKE '%");
+        sentence(sb, random, 6);
+        sb.append("%' ORDER BY 1\";\n    String json = \"{\\\"").append(pick(NAMES, random)).append("\\\": [");
+        for (int i = random.nextInt(10); i >= 0; i--) {
+            sb.append(random.nextInt(1000)).append(", ");
+        }
+        sb.append("0], \\\"text\\\": \\\"");
+        sentence(sb, random, 12);
+        sb.append("\\\"}\\n\";\n");
+    }
+
+    private static void errors(StringBuilder sb, Random random) {
+        for (int i = random.nextInt(8); i >= 0; i--) {
+            sb.append(pick(JUNK, random)).append(pick(NAMES, random)).append(' ');
+        }
+        sb.append('\n');
+    }
+
+    private static void sentence(StringBuilder sb, Random random, int words) {
+        for (int i = 0; i < words; i++) {
+            sb.append(pick(WORDS, random)).append(i + 1 < words ? " " : ".");
+        }
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
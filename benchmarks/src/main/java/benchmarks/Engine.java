@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Lexer engine called through method handles: the lexer classes are in the unnamed package,
+ * which JMH benchmarks can not import.
+ */
+public class Engine {
+    private final Object tokenizer;
+    private final MethodHandle tokenize;
+    private final MethodHandle getTokens;
+    private final MethodHandle size;
+
+    private Engine(String className) throws ReflectiveOperationException {
+        this(Class.forName(className).getConstructor().newInstance());
+    }
+
+    private Engine(Object tokenizer) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Class<?> engine = tokenizer.getClass();
+        Class<?> table = Class.forName("TokenTable");
+        this.tokenizer = tokenizer;
+        tokenize = lookup.findVirtual(engine, "tokenize", MethodType.methodType(table, CharSequence.class))
+                .asType(MethodType.methodType(Object.class, Object.class, CharSequence.class));
+        getTokens = lookup.findVirtual(engine, "getTokens", MethodType.methodType(List.class, CharSequence.class))
+                .asType(MethodType.methodType(List.class, Object.class, CharSequence.class));
+        size = lookup.findVirtual(table, "size", MethodType.methodType(int.class))
+                .asType(MethodType.methodType(int.class, Object.class));
+    }
+
+    /**
+     * Engine by its name in Main: switch, table or parallel
+     */
+    public static Engine of(String name) throws ReflectiveOperationException {
+        if ("switch".equals(name)) {
+            return new Engine("Lexer");
+        } else if ("table".equals(name)) {
+            return new Engine("TableLexer");
+        } else if ("parallel".equals(name)) {
+            return new Engine("ParallelLexer");
+        }
+        throw new IllegalArgumentException("Unknown engine: " + name);
+    }
+
+    /**
+     * Engine by its name in Main wrapped in the hardened mode with the maximum token length
+     */
+    public static Engine hardened(String name, int maxTokenLength) throws ReflectiveOperationException {
+        Class<?> tokenizer = Class.forName("Tokenizer");
+        return new Engine(Class.forName("HardenedLexer").getConstructor(tokenizer, int.class)
+                .newInstance(of(name).tokenizer, maxTokenLength));
+    }
+
+    /**
+     * Lexes into a token table, returns the table
+     */
+    public Object tokenize(CharSequence source) throws Throwable {
+        return (Object) tokenize.invokeExact(tokenizer, source);
+    }
+
+    public int size(Object table) throws Throwable {
+        return (int) size.invokeExact(table);
+    }
+
+    public List<?> getTokens(CharSequence source) throws Throwable {
+        return (List<?>) getTokens.invokeExact(tokenizer, source);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every engine on every corpus kind. Besides ops/s, the chars and tokens counters give
+ * chars/s (about bytes/s, the corpus is ASCII) and tokens/s. Run with -prof gc for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+    @Param({"switch", "table", "parallel"})
+    public String engine;
+
+    @Param({"IDENTIFIERS", "NUMBERS", "COMMENTS", "STRINGS", "ERRORS", "MIXED"})
+    public Corpus.Kind corpus;
+
+    @Param({"1048576"})
+    public int size;
+
+    private Engine lexer;
+    private String source;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        lexer = Engine.of(engine);
+        source = Corpus.generate(corpus, size, 42);
+    }
+
+    @Benchmark
+    public Object tokenize(Counters counters) throws Throwable {
+        Object table = lexer.tokenize(source);
+        counters.chars += source.length();
+        counters.tokens += lexer.size(table);
+        return table;
+    }
+
+    /**
+     * The List API of Lexer.getTokens, a view over the same token table
+     */
+    @Benchmark
+    public Object getTokens(Counters counters) throws Throwable {
+        List<?> tokens = lexer.getTokens(source);
+        counters.chars += source.length();
+        counters.tokens += tokens.size();
+        return tokens;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long chars;
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            chars = 0;
+            tokens = 0;
+        }
+    }
+}
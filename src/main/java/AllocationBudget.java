@@ -0,0 +1,137 @@
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Checks that an engine stays within a budget of heap bytes allocated per input char and per token.
+ * The engine lexes a fixed corpus into a sink which only counts, after warm-up runs for the JIT and for grown buffers,
+ * so only allocations of the engine itself are measured. Bytes are summed over all threads, which covers
+ * engines lexing on a pool, and the cost of reading the counters is subtracted.
+ */
+public class AllocationBudget {
+    //no block comment, the lexer stays in the comment state after its end
+    private static final String SNIPPET = "// Fixed corpus of the allocation budget\n"
+            + "public class Sample<T> extends Base implements Runnable {\n"
+            + "    private static final long MASK = 0x7FFF_FFFFL, BITS = 0b1011, MODE = 0755;\n"
+            + "    private double ratio = 3.14e-2, half = .5f;\n"
+            + "    // line comment with \"quotes\"\n"
+            + "    public boolean run(int[] values, char c) {\n"
+            + "        String text = \"tab\\t and \\\"quote\\\"\" + '\\n' + 'x';\n"
+            + "        for (int i = 0; i < values.length && i <= 10; i++) {\n"
+            + "            values[i] >>>= 2; values[i] <<= 1; ratio *= -values[i] % 7;\n"
+            + "        }\n"
+            + "        Runnable r = Sample::new; return c != 'q' || text == null ? true : false;\n"
+            + "    }\n"
+            + "    #junk 08 1__ 0x\n"
+            + "}\n";
+
+    private final double bytesPerChar;
+    private final double bytesPerToken;
+
+    public AllocationBudget(double bytesPerChar, double bytesPerToken) {
+        this.bytesPerChar = bytesPerChar;
+        this.bytesPerToken = bytesPerToken;
+    }
+
+    /**
+     * Deterministic Java source of at least size chars, every kind of token and some junk
+     */
+    public static String corpus(int size) {
+        StringBuilder sb = new StringBuilder(size + SNIPPET.length());
+        while (sb.length() < size) {
+            sb.append(SNIPPET);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lexes the corpus warmUpRuns times unmeasured, then runs times measured
+     */
+    public Result measure(Tokenizer engine, CharSequence corpus, int warmUpRuns, int runs) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            throw new UnsupportedOperationException("Allocated bytes of threads are not available in this JVM");
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("Allocated bytes of threads are not supported by this JVM");
+        }
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        TokenCounter counter = new TokenCounter();
+        for (int i = 0; i < warmUpRuns; i++) {
+            engine.tokenize(corpus, counter);
+        }
+        //reading the counters allocates too, measured without lexing in between
+        long overhead = allocated(allocations);
+        overhead = allocated(allocations) - overhead;
+
+        counter.tokens = 0;
+        long start = allocated(allocations);
+        for (int i = 0; i < runs; i++) {
+            engine.tokenize(corpus, counter);
+        }
+        long bytes = Math.max(0, allocated(allocations) - start - overhead);
+        return new Result(engine.getClass().getSimpleName(), (long) corpus.length() * runs, counter.tokens, bytes,
+                bytesPerChar, bytesPerToken);
+    }
+
+    /**
+     * Bytes allocated so far by all live threads
+     */
+    private static long allocated(com.sun.management.ThreadMXBean allocations) {
+        long total = 0;
+        for (long bytes : allocations.getThreadAllocatedBytes(allocations.getAllThreadIds())) {
+            //-1 for a thread which ended meanwhile
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private static class TokenCounter implements TokenSink {
+        private long tokens;
+
+        public void token(Token.TokenType type, int start, int length) {
+            tokens++;
+        }
+    }
+
+    @Getter
+    public static class Result {
+        private final String engine;
+        private final long chars;
+        private final long tokens;
+        private final long bytes;
+        private final double budgetPerChar;
+        private final double budgetPerToken;
+
+        private Result(String engine, long chars, long tokens, long bytes, double budgetPerChar, double budgetPerToken) {
+            this.engine = engine;
+            this.chars = chars;
+            this.tokens = tokens;
+            this.bytes = bytes;
+            this.budgetPerChar = budgetPerChar;
+            this.budgetPerToken = budgetPerToken;
+        }
+
+        public double getBytesPerChar() {
+            return chars == 0 ? 0 : (double) bytes / chars;
+        }
+
+        public double getBytesPerToken() {
+            return tokens == 0 ? 0 : (double) bytes / tokens;
+        }
+
+        public boolean isWithinBudget() {
+            return getBytesPerChar() <= budgetPerChar && getBytesPerToken() <= budgetPerToken;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d bytes for %d chars and %d tokens, %.4f bytes/char (budget %.4f), %.4f bytes/token (budget %.4f): %s",
+                    engine, bytes, chars, tokens, getBytesPerChar(), budgetPerChar, getBytesPerToken(), budgetPerToken,
+                    isWithinBudget() ? "ok" : "over budget");
+        }
+    }
+}
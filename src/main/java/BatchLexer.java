@@ -0,0 +1,244 @@
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lexes many files concurrently on a work-stealing pool.
+ * A file is lexed by an engine borrowed from a {@link LexerPool}, because the engines keep the lexing state in fields.
+ * Only the counts of every file are kept, results are in the sorted order of the paths.
+ */
+public class BatchLexer {
+    private static final String DEFAULT_EXTENSION = ".java";
+    private static final int FILES_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+    private final LexerPool lexers;
+    private final Charset charset;
+    private final TokenCache cache;
+    private final SymbolTable symbols;
+
+    public BatchLexer() {
+        this(ForkJoinPool.commonPool(), Lexer::new, Charset.defaultCharset(), null);
+    }
+
+    /**
+     * Files whose content is in the cache are not lexed again, the cache may be null
+     */
+    public BatchLexer(ForkJoinPool pool, Supplier<Tokenizer> engine, Charset charset, TokenCache cache) {
+        this(pool, engine, charset, cache, null);
+    }
+
+    /**
+     * Identifiers of all files are interned into the shared symbol table, which may be null
+     */
+    public BatchLexer(ForkJoinPool pool, Supplier<Tokenizer> engine, Charset charset, TokenCache cache, SymbolTable symbols) {
+        this.pool = pool;
+        this.lexers = new LexerPool(engine, pool.getParallelism());
+        this.charset = charset;
+        this.cache = cache;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Files of the arguments in sorted order: a file is taken as is, a directory is walked for java files,
+     * anything else is a glob pattern like src/**.java which is walked from its directory prefix
+     */
+    public static List<Path> collect(List<String> patterns) throws IOException {
+        TreeSet<Path> files = new TreeSet<Path>();
+        for (String pattern : patterns) {
+            Path path = globBase(pattern);
+            if (path == null && Files.isDirectory(Paths.get(pattern))) {
+                try (Stream<Path> walk = Files.walk(Paths.get(pattern))) {
+                    files.addAll(walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(DEFAULT_EXTENSION))
+                            .collect(Collectors.toList()));
+                }
+            } else if (path == null) {
+                files.add(Paths.get(pattern));
+            } else {
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(walk.filter(p -> Files.isRegularFile(p) && matcher.matches(p))
+                            .collect(Collectors.toList()));
+                }
+            }
+        }
+        return new ArrayList<Path>(files);
+    }
+
+    /**
+     * Directory part of a glob pattern before the first segment with a wildcard, null if it is no pattern
+     */
+    private static Path globBase(String pattern) {
+        int wildcard = -1;
+        for (int i = 0; i < pattern.length() && wildcard < 0; i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                wildcard = i;
+            }
+        }
+        if (wildcard < 0) {
+            return null;
+        }
+        int separator = pattern.lastIndexOf('/', wildcard);
+        return Paths.get(separator < 0 ? "" : pattern.substring(0, separator + 1));
+    }
+
+    /**
+     * Lexes all files, a file which can not be read gets a result with the error instead of failing the batch
+     */
+    public Result lex(List<Path> files) {
+        long startTime = System.nanoTime();
+        FileResult[] results = new FileResult[files.size()];
+        pool.invoke(new LexTask(files, results, 0, files.size()));
+        return new Result(results, System.nanoTime() - startTime);
+    }
+
+    private FileResult lex(Path file) {
+        Tokenizer lexer = lexers.acquire();
+        try {
+            TypeCounter counter = new TypeCounter();
+            int chars;
+            if (cache != null) {
+                TokenTable table = cache.tokenize(file, lexer, charset);
+                if (symbols != null) {
+                    table.intern(symbols);
+                }
+                for (int i = 0; i < table.size(); i++) {
+                    counter.token(table.getType(i), table.getStart(i), table.getLength(i));
+                }
+                chars = table.getSource().length();
+            } else {
+                String source = new String(Files.readAllBytes(file), charset);
+                //only counts are kept, identifiers are interned as they are lexed
+                lexer.tokenize(source, symbols != null ? new SymbolInterner(source, symbols, counter) : counter);
+                chars = source.length();
+            }
+            return new FileResult(file, chars, counter.counts, null);
+        } catch (IOException | RuntimeException e) {
+            return new FileResult(file, 0, new long[Token.TokenType.values().length], e.toString());
+        } finally {
+            lexers.release(lexer);
+        }
+    }
+
+    /**
+     * Splits the files in halves until a part is small enough, idle workers steal the other halves
+     */
+    private class LexTask extends RecursiveAction {
+        private final List<Path> files;
+        private final FileResult[] results;
+        private final int from;
+        private final int to;
+
+        private LexTask(List<Path> files, FileResult[] results, int from, int to) {
+            this.files = files;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = lex(files.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LexTask(files, results, from, middle), new LexTask(files, results, middle, to));
+        }
+    }
+
+    private static class TypeCounter implements TokenSink {
+        private final long[] counts = new long[Token.TokenType.values().length];
+
+        public void token(Token.TokenType type, int start, int length) {
+            counts[type.ordinal()]++;
+        }
+    }
+
+    private static class SymbolInterner implements TokenSink {
+        private final CharSequence source;
+        private final SymbolTable symbols;
+        private final TokenSink sink;
+
+        private SymbolInterner(CharSequence source, SymbolTable symbols, TokenSink sink) {
+            this.source = source;
+            this.symbols = symbols;
+            this.sink = sink;
+        }
+
+        public void token(Token.TokenType type, int start, int length) {
+            if (type == Token.TokenType.IDENTIFIER) {
+                symbols.intern(source, start, start + length);
+            }
+            sink.token(type, start, length);
+        }
+    }
+
+    @Getter
+    public static class FileResult {
+        private final Path path;
+        private final int chars;
+        private final long[] typeCounts;
+        private final String error;
+
+        private FileResult(Path path, int chars, long[] typeCounts, String error) {
+            this.path = path;
+            this.chars = chars;
+            this.typeCounts = typeCounts;
+            this.error = error;
+        }
+
+        public long getTokens() {
+            long tokens = 0;
+            for (long count : typeCounts) {
+                tokens += count;
+            }
+            return tokens;
+        }
+    }
+
+    /**
+     * Results of all files in the order of the paths and their totals
+     */
+    @Getter
+    public static class Result {
+        private final List<FileResult> files = new ArrayList<FileResult>();
+        private final long[] typeCounts = new long[Token.TokenType.values().length];
+        private final long elapsedNanos;
+        private long chars;
+        private long tokens;
+        private int failed;
+
+        private Result(FileResult[] results, long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+            for (FileResult result : results) {
+                files.add(result);
+                chars += result.getChars();
+                tokens += result.getTokens();
+                if (result.getError() != null) {
+                    failed++;
+                }
+                for (int i = 0; i < typeCounts.length; i++) {
+                    typeCounts[i] += result.getTypeCounts()[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Arrays;
+
+/**
+ * Decides per token type if tokens are passed on, only counted or dropped, before they reach the sink which stores them.
+ * Dropped and counted tokens cost one array lookup, nothing is allocated or stored for them.
+ * Adjacent whitespace tokens can be merged into one run by a {@link MergingSink}, call {@link #finish()} at the end
+ * of input then.
+ */
+public class ChannelFilter implements TokenSink {
+    public enum Channel {
+        EMIT, COUNT, DROP
+    }
+
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+
+    private final TokenSink sink;
+    private final Channel[] channels = new Channel[TOKEN_TYPES.length];
+    private final long[] counts = new long[TOKEN_TYPES.length];
+    //the sink, or the merging sink in front of it
+    private TokenSink emitted;
+
+    /**
+     * Passes on all types until channels are set
+     */
+    public ChannelFilter(TokenSink sink) {
+        this.sink = sink;
+        this.emitted = sink;
+        Arrays.fill(channels, Channel.EMIT);
+    }
+
+    public ChannelFilter set(Token.TokenType type, Channel channel) {
+        channels[type.ordinal()] = channel;
+        return this;
+    }
+
+    /**
+     * Whitespace tokens which follow each other are passed on as one, if whitespace is emitted
+     */
+    public ChannelFilter mergeWhitespace(boolean merge) {
+        finish();
+        this.emitted = merge ? new MergingSink(sink, Token.TokenType.WHITESPACE) : sink;
+        return this;
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        int ordinal = type.ordinal();
+        counts[ordinal]++;
+        if (channels[ordinal] == Channel.EMIT) {
+            emitted.token(type, start, length);
+        }
+    }
+
+    /**
+     * Passes on the held back whitespace run, if any
+     */
+    public void finish() {
+        if (emitted instanceof MergingSink) {
+            ((MergingSink) emitted).finish();
+        }
+    }
+
+    public Channel getChannel(Token.TokenType type) {
+        return channels[type.ordinal()];
+    }
+
+    /**
+     * Number of tokens of the type the lexer produced, whatever their channel; merged whitespace counts every token
+     */
+    public long getCount(Token.TokenType type) {
+        return counts[type.ordinal()];
+    }
+}
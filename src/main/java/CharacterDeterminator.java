@@ -1,47 +1,118 @@
-import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Pattern;
-
+/**
+ * Char predicates of the lexer, all answered by one lookup of the flags of the char.
+ * Flags of ASCII and Latin-1 are computed up front, flags of other chars on first use.
+ */
 public class CharacterDeterminator {
-    private static final List<String> keywords = Arrays.asList(
-            "abstract", "continue", "for", "new", "switch",
-            "assert", "default", "goto", "package", "synchronized",
-            "boolean", "do", "if", "private", "this",
-            "break", "double", "implements", "protected", "throw",
-            "byte", "else", "import", "public", "throws",
-            "case", "enum", "instanceof", "return", "transient",
-            "catch", "extends", "int", "short", "try",
-            "char", "final", "interface", "static", "void",
-            "class", "finally", "long", "strictfp", "volatile",
-            "const", "float", "native", "super", "while"
-    );
+    public static final int WHITESPACE = 1;
+    public static final int IDENTIFIER_START = 1 << 1;
+    public static final int IDENTIFIER_PART = 1 << 2;
+    public static final int DIGIT = 1 << 3;
+    public static final int SEPARATOR = 1 << 4;
+    public static final int OPERATOR = 1 << 5;
+    public static final int OCTAL = 1 << 6;
+    public static final int BINARY = 1 << 7;
+    public static final int HEX = 1 << 8;
+    public static final int DOUBLE_OR_FLOAT = 1 << 9;
+    public static final int SPECIAL = 1 << 10;
+    private static final int CACHED = 1 << 15;
+
+    private static final int LATIN1_SIZE = 256;
+    private static final short[] LATIN1 = new short[LATIN1_SIZE];
+    //0 until the flags of the char are cached, writes by several threads store the same value
+    private static final short[] UNICODE = new short[Character.MAX_VALUE + 1 - LATIN1_SIZE];
+
+    static {
+        for (int c = 0; c < LATIN1_SIZE; c++) {
+            LATIN1[c] = compute((char) c);
+        }
+        mark("()[]{};,.", SEPARATOR);
+        mark("=><!~:?&|+-*/^%", OPERATOR);
+        mark("01234567", OCTAL);
+        mark("01", BINARY);
+        mark("0123456789abcdefABCDEF", HEX);
+        mark("fFdD", DOUBLE_OR_FLOAT);
+        //char after the backslash of an escape sequence: \b, \t, \n, \r, \f
+        mark("btnrf", SPECIAL);
+    }
+
+    private static void mark(String chars, int flag) {
+        for (int i = 0; i < chars.length(); i++) {
+            LATIN1[chars.charAt(i)] |= flag;
+        }
+    }
+
+    /**
+     * Flags which depend on Unicode properties, the others are only set for ASCII chars
+     */
+    private static short compute(char c) {
+        return (short) (CACHED
+                | (Character.isWhitespace(c) ? WHITESPACE : 0)
+                | (Character.isJavaIdentifierStart(c) ? IDENTIFIER_START : 0)
+                | (Character.isJavaIdentifierPart(c) ? IDENTIFIER_PART : 0)
+                | (Character.isDigit(c) ? DIGIT : 0));
+    }
+
+    public static int flags(char c) {
+        if (c < LATIN1_SIZE) {
+            return LATIN1[c];
+        }
+        short flags = UNICODE[c - LATIN1_SIZE];
+        if (flags == 0) {
+            flags = compute(c);
+            UNICODE[c - LATIN1_SIZE] = flags;
+        }
+        return flags;
+    }
+
+    /**
+     * True if the char has any of the flags
+     */
+    public static boolean is(char c, int flags) {
+        return (flags(c) & flags) != 0;
+    }
+
+    public static boolean isWhitespace(char c) {
+        return is(c, WHITESPACE);
+    }
+
+    public static boolean isJavaIdentifierStart(char c) {
+        return is(c, IDENTIFIER_START);
+    }
+
+    public static boolean isJavaIdentifierPart(char c) {
+        return is(c, IDENTIFIER_PART);
+    }
+
+    public static boolean isDigit(char c) {
+        return is(c, DIGIT);
+    }
 
-    public static boolean isSeparator(Character c) {
-        return c == '(' || c == ')' || c == '{' || c == '}' || c == '[' || c == ']' || c == ';' || c == ',' || c=='.';
+    public static boolean isSeparator(char c) {
+        return is(c, SEPARATOR);
     }
 
-    public static boolean isOperator(Character c) {
-        return c == '=' || c == '>' || c == '<' || c == '!' || c == '~' || c == ':' || c == '?' || c == '&' || c == '|' || c == '+' || c == '-' || c == '*' || c == '/' || c == '^' || c == '%';
+    public static boolean isOperator(char c) {
+        return is(c, OPERATOR);
     }
 
-    public static boolean isSpecial(String str) {
-        return "\\b".equals(str) || "\\t".equals(str) || "\\n".equals(str) || "\\".equals(str) || "'".equals(str) || "\"".equals(str) || "\\r".equals(str) || "\\f".equals(str);
+    public static boolean isSpecial(char c) {
+        return is(c, SPECIAL);
     }
 
-    public static boolean isOctal(Character c) {
-        return Pattern.matches("[0-7]", c.toString());
+    public static boolean isOctal(char c) {
+        return is(c, OCTAL);
     }
 
-    public static boolean isBinary(Character c) {
-        return c == '0' || c == '1';
+    public static boolean isBinary(char c) {
+        return is(c, BINARY);
     }
 
-    public static boolean isHex(Character c) {
-        return Pattern.matches("\\d|[a-fA-F]", c.toString());
+    public static boolean isHex(char c) {
+        return is(c, HEX);
     }
 
-    public static boolean isDoubleOrFloat(Character c) {
-        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    public static boolean isDoubleOrFloat(char c) {
+        return is(c, DOUBLE_OR_FLOAT);
     }
 
     public static boolean isBooleanLiteral(String str) {
@@ -53,6 +124,6 @@ public class CharacterDeterminator {
     }
 
     public static boolean isKeyword(String str) {
-        return keywords.contains(str);
+        return KeywordClassifier.isKeyword(str);
     }
 }
@@ -0,0 +1,25 @@
+/**
+ * Sink of the hardened mode for untrusted input, see {@link HardenedLexer}.
+ * A token longer than the limit is passed on as an error, by its offsets like every token.
+ * Adjacent error tokens are merged into one, so a run of junk chars costs one token instead of one per char.
+ */
+public class ErrorCoalescingSink extends MergingSink {
+    private final int maxTokenLength;
+
+    public ErrorCoalescingSink(TokenSink sink, int maxTokenLength) {
+        super(sink, Token.TokenType.ERROR);
+        if (maxTokenLength < 1) {
+            throw new IllegalArgumentException("Maximum token length must be positive: " + maxTokenLength);
+        }
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    @Override
+    public void token(Token.TokenType type, int start, int length) {
+        if (length > maxTokenLength) {
+            merge(start, length);
+            return;
+        }
+        super.token(type, start, length);
+    }
+}
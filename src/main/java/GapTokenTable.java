@@ -0,0 +1,149 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Token table of {@link IncrementalLexer}. Free slots form a gap, which edits move to where they splice. Tokens after
+ * the gap keep their starts relative to the size change of all edits, so an edit touches only the tokens between
+ * the gap and it. Only this table pays for finding the side of the gap a token is on.
+ */
+class GapTokenTable extends TokenTable {
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+
+    //tokens [gapStart, size) are stored at the end of the arrays, their starts without shift
+    private int gapStart;
+    private int shift;
+
+    GapTokenTable(CharSequence source) {
+        super(source);
+    }
+
+    @Override
+    public void token(Token.TokenType type, int start, int length) {
+        moveGap(size);
+        super.token(type, start, length);
+        gapStart = size;
+    }
+
+    /**
+     * Replaces tokens [from, to) with all tokens of the replacement and moves the tokens after them
+     * for an edit of the source: tokens starting at shiftFrom or later move by delta, others grow by delta.
+     * Costs the number of tokens between the gap and the edit, not the number of tokens after it.
+     */
+    void splice(int from, int to, TokenTable replacement, int shiftFrom, int delta) {
+        moveGap(to);
+        if (delta != 0) {
+            //only tokens which start before the edit ends grow, the first one at or after shiftFrom ends the loop
+            int gap = types.length - size;
+            for (int i = to; i < size && starts[i + gap] + shift < shiftFrom; i++) {
+                starts[i + gap] -= delta;
+                lengths[i + gap] += delta;
+            }
+            shift += delta;
+        }
+
+        //the removed tokens become part of the gap, tokens after it stay where they are
+        gapStart = from;
+        size -= to - from;
+        int count = replacement.size;
+        if (size + count > types.length) {
+            grow(size + count);
+        }
+        System.arraycopy(replacement.types, 0, types, from, count);
+        System.arraycopy(replacement.starts, 0, starts, from, count);
+        System.arraycopy(replacement.lengths, 0, lengths, from, count);
+        gapStart += count;
+        size += count;
+        dropSymbols();
+    }
+
+    @Override
+    void append(TokenTable other, int from, int to) {
+        moveGap(size);
+        super.append(other, from, to);
+        gapStart = size;
+    }
+
+    @Override
+    void clear() {
+        super.clear();
+        gapStart = 0;
+        shift = 0;
+    }
+
+    /**
+     * Interning reads the arrays in order, the gap goes to the end first
+     */
+    @Override
+    public void intern(SymbolTable symbolTable) {
+        moveGap(size);
+        super.intern(symbolTable);
+    }
+
+    @Override
+    public void intern(SymbolTable symbolTable, ForkJoinPool pool) {
+        moveGap(size);
+        super.intern(symbolTable, pool);
+    }
+
+    @Override
+    public Token.TokenType getType(int index) {
+        return TOKEN_TYPES[types[slot(checkIndex(index))]];
+    }
+
+    @Override
+    public int getStart(int index) {
+        return checkIndex(index) < gapStart ? starts[index] : starts[index + types.length - size] + shift;
+    }
+
+    @Override
+    public int getLength(int index) {
+        return lengths[slot(checkIndex(index))];
+    }
+
+    /**
+     * Array index of the token
+     */
+    private int slot(int index) {
+        return index < gapStart ? index : index + types.length - size;
+    }
+
+    /**
+     * Moves the gap in front of the token at the index, tokens which cross it get or lose the shift
+     */
+    private void moveGap(int index) {
+        int gap = types.length - size;
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(types, index, types, index + gap, count);
+            System.arraycopy(starts, index, starts, index + gap, count);
+            System.arraycopy(lengths, index, lengths, index + gap, count);
+            for (int i = index + gap; i < gapStart + gap; i++) {
+                starts[i] -= shift;
+            }
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            System.arraycopy(types, gapStart + gap, types, gapStart, count);
+            System.arraycopy(starts, gapStart + gap, starts, gapStart, count);
+            System.arraycopy(lengths, gapStart + gap, lengths, gapStart, count);
+            for (int i = gapStart; i < index; i++) {
+                starts[i] += shift;
+            }
+        }
+        gapStart = index;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(types.length * 2, minCapacity);
+        int back = size - gapStart;
+        byte[] grownTypes = Arrays.copyOf(types, capacity);
+        int[] grownStarts = Arrays.copyOf(starts, capacity);
+        int[] grownLengths = Arrays.copyOf(lengths, capacity);
+        //tokens after the gap stay at the end
+        System.arraycopy(types, types.length - back, grownTypes, capacity - back, back);
+        System.arraycopy(starts, types.length - back, grownStarts, capacity - back, back);
+        System.arraycopy(lengths, types.length - back, grownLengths, capacity - back, back);
+        types = grownTypes;
+        starts = grownStarts;
+        lengths = grownLengths;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Engine for untrusted input: lexes with another engine through an {@link ErrorCoalescingSink}.
+ * Engines keep tokens as offsets and never buffer token text, so time and memory stay linear in the input
+ * even for an unterminated comment; the hardened mode bounds the token length and the number of error tokens.
+ */
+public class HardenedLexer implements Tokenizer {
+    private final Tokenizer engine;
+    private final int maxTokenLength;
+
+    public HardenedLexer(Tokenizer engine, int maxTokenLength) {
+        this.engine = engine;
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    public void tokenize(CharSequence source, TokenSink sink) {
+        ErrorCoalescingSink errors = new ErrorCoalescingSink(sink, maxTokenLength);
+        engine.tokenize(source, errors);
+        errors.finish();
+    }
+
+    public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+        ErrorCoalescingSink errors = new ErrorCoalescingSink(sink, maxTokenLength);
+        engine.tokenize(buf, off, len, errors);
+        errors.finish();
+    }
+
+    @Override
+    public void reset() {
+        engine.reset();
+    }
+
+    public Tokenizer getEngine() {
+        return engine;
+    }
+
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes the source with highlighted tokens while they are lexed, as ANSI colors or HTML spans.
+ * Output goes through one reusable char buffer, nothing but the buffer is kept in memory.
+ * Chars which are in no token, like the one dropped after '..', are written unhighlighted.
+ */
+public class Highlighter implements TokenSink {
+    public enum Format {
+        ANSI, HTML
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String ANSI_RESET = "\u001B[0m";
+    private static final String HTML_HEADER = "<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<style>\n"
+            + "pre { background: #fdfdfd; }\n"
+            + ".comment { color: #808080; font-style: italic; }\n"
+            + ".operator { color: #a05000; }\n"
+            + ".int_literal, .float_literal { color: #0080a0; }\n"
+            + ".char_literal, .string_literal { color: #008000; }\n"
+            + ".boolean_literal, .null_literal { color: #800080; }\n"
+            + ".keyword { color: #000080; font-weight: bold; }\n"
+            + ".error { color: #ffffff; background: #c00000; }\n"
+            + "</style>\n</head>\n<body>\n<pre>";
+    private static final String HTML_FOOTER = "</pre>\n</body>\n</html>\n";
+
+    private final Writer out;
+    private final CharSequence source;
+    private final Format format;
+    private final String[] prefixes = new String[Token.TokenType.values().length];
+    private final String[] suffixes = new String[prefixes.length];
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int size;
+    private int written;
+
+    public Highlighter(Writer out, CharSequence source, Format format) {
+        this.out = out;
+        this.source = source;
+        this.format = format;
+        for (Token.TokenType type : Token.TokenType.values()) {
+            String style = format == Format.ANSI ? ansiColor(type) : type.name().toLowerCase();
+            boolean plain = style == null || type == Token.TokenType.WHITESPACE || type == Token.TokenType.IDENTIFIER || type == Token.TokenType.SEPARATOR;
+            if (plain) {
+                prefixes[type.ordinal()] = "";
+                suffixes[type.ordinal()] = "";
+            } else if (format == Format.ANSI) {
+                prefixes[type.ordinal()] = "\u001B[" + style + "m";
+                suffixes[type.ordinal()] = ANSI_RESET;
+            } else {
+                prefixes[type.ordinal()] = "<span class=\"" + style + "\">";
+                suffixes[type.ordinal()] = "</span>";
+            }
+        }
+        if (format == Format.HTML) {
+            append(HTML_HEADER);
+        }
+    }
+
+    private static String ansiColor(Token.TokenType type) {
+        switch (type) {
+            case COMMENT:
+                return "90";
+            case OPERATOR:
+                return "33";
+            case INT_LITERAL:
+            case FLOAT_LITERAL:
+                return "36";
+            case CHAR_LITERAL:
+            case STRING_LITERAL:
+                return "32";
+            case BOOLEAN_LITERAL:
+            case NULL_LITERAL:
+                return "35";
+            case KEYWORD:
+                return "1;34";
+            case ERROR:
+                return "97;41";
+            default:
+                return null;
+        }
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        //the whitespace the lexer appends at the end of input is not in the source
+        int end = Math.min(start + length, source.length());
+        text(written, start);
+        append(prefixes[type.ordinal()]);
+        text(start, end);
+        append(suffixes[type.ordinal()]);
+        written = end;
+    }
+
+    /**
+     * Writes the rest of the source and the end of the document, then flushes
+     */
+    public void finish() throws IOException {
+        text(written, source.length());
+        written = source.length();
+        if (format == Format.HTML) {
+            append(HTML_FOOTER);
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    private void text(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (format == Format.HTML && (c == '<' || c == '>' || c == '&' || c == '"')) {
+                append(c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : "&quot;");
+            } else {
+                if (size == buffer.length) {
+                    flushBuffer();
+                }
+                buffer[size++] = c;
+            }
+        }
+    }
+
+    private void append(String text) {
+        if (size + text.length() > buffer.length) {
+            flushBuffer();
+        }
+        text.getChars(0, text.length(), buffer, size);
+        size += text.length();
+    }
+
+    private void flushBuffer() {
+        try {
+            out.write(buffer, 0, size);
+        } catch (IOException e) {
+            //TokenSink can not throw checked exceptions
+            throw new UncheckedIOException(e);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,345 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the tokens of an edited text up to date without lexing the whole text again.
+ * The lexer state is saved at checkpoints while lexing. After an edit, lexing resumes from the last
+ * checkpoint before the edit and stops at the first checkpoint behind it where the state matches the
+ * previous run again; the old tokens from there on are moved by the size change of the edit.
+ * Text, tokens and checkpoints are gap buffers whose gap follows the edits: what is behind a gap is stored
+ * relative to the end, so an edit costs the damaged tokens and the distance to the previous edit, not the file size.
+ */
+public class IncrementalLexer {
+    private static final int CHECKPOINT_INTERVAL = 512;
+    private static final int IDENTIFIER_ROW = TransitionTable.rowOf(State.JAVA_IDENTIFIER);
+
+    private final TableLexer lexer = new TableLexer();
+    private final GapTokenTable table = new GapTokenTable(new Document());
+    private final TokenTable relexed = new TokenTable(table.getSource());
+    private final Checkpoints checkpoints = new Checkpoints();
+    //chars [gapStart, length) are stored at the end of the array, the lexer only reads chars before the gap
+    private char[] text;
+    private int length;
+    private int gapStart;
+
+    public IncrementalLexer(CharSequence source) {
+        length = source.length();
+        text = new char[Math.max(length, Tokenizer.BLOCK_SIZE)];
+        for (int i = 0; i < length; i++) {
+            text[i] = source.charAt(i);
+        }
+        gapStart = length;
+
+        checkpoints.add(0, TransitionTable.INITIAL_ROW, 0, 0);
+        relex(0, 0, 0, length);
+    }
+
+    /**
+     * Tokens of the current text, the table is updated in place by every edit
+     */
+    public TokenTable getTable() {
+        return table;
+    }
+
+    public CharSequence getText() {
+        return table.getSource();
+    }
+
+    /**
+     * Replaces removed chars at the offset with the inserted text and updates the tokens
+     */
+    public TokenTable edit(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") of text with length " + length);
+        }
+
+        int checkpoint = checkpoints.floor(offset);
+
+        //the removed chars are the first ones behind the gap, dropping them leaves the others in place
+        moveGap(offset);
+        length -= removed;
+        if (length + inserted.length() > text.length) {
+            int capacity = Math.max(length + inserted.length(), text.length * 2);
+            char[] grown = Arrays.copyOf(text, capacity);
+            int back = length - gapStart;
+            System.arraycopy(text, text.length - back, grown, capacity - back, back);
+            text = grown;
+        }
+        for (int i = 0; i < inserted.length(); i++) {
+            text[gapStart++] = inserted.charAt(i);
+        }
+        length += inserted.length();
+
+        relex(checkpoint, offset, offset + removed, offset + inserted.length());
+        return table;
+    }
+
+    /**
+     * Moves the gap of the text to the offset
+     */
+    private void moveGap(int offset) {
+        int gap = text.length - length;
+        if (offset < gapStart) {
+            System.arraycopy(text, offset, text, offset + gap, gapStart - offset);
+        } else if (offset > gapStart) {
+            System.arraycopy(text, gapStart + gap, text, gapStart, offset - gapStart);
+        }
+        gapStart = offset;
+    }
+
+    /**
+     * Lexes from the checkpoint until the state matches a checkpoint after the edit or the text ends.
+     * editEnd is in old offsets, insertedEnd in new ones.
+     */
+    private void relex(int checkpoint, int editOffset, int editEnd, int insertedEnd) {
+        int delta = insertedEnd - editEnd;
+        int firstToken = checkpoints.count(checkpoint);
+
+        //checkpoints inside the edited part are gone, the ones behind it are candidates to sync with
+        int candidate = checkpoint + 1;
+        while (candidate < checkpoints.size && checkpoints.offset(candidate) < editEnd) {
+            candidate++;
+        }
+
+        Checkpoints added = new Checkpoints();
+        relexed.clear();
+        int resumeStart = start(checkpoint);
+        lexer.resume(text, 0, checkpoints.row(checkpoint), resumeStart, relexed);
+
+        int position = checkpoints.offset(checkpoint);
+        while (position < length) {
+            int next;
+            if (position < insertedEnd) {
+                next = Math.min(position + CHECKPOINT_INTERVAL, length);
+            } else {
+                while (candidate < checkpoints.size && checkpoints.offset(candidate) + delta <= position) {
+                    candidate++;
+                }
+                next = candidate < checkpoints.size ? checkpoints.offset(candidate) + delta : length;
+            }
+
+            //the gap moves along in front of the lexer
+            if (next > gapStart) {
+                moveGap(next);
+            }
+            lexer.run(position, next);
+            position = next;
+            if (position == length) {
+                break;
+            }
+
+            int row = lexer.row();
+            int pendingStart = lexer.pendingStart();
+            if (candidate < checkpoints.size && checkpoints.offset(candidate) + delta == position
+                    && checkpoints.row(candidate) == row
+                    && start(candidate) == oldOffset(pendingStart, row, editOffset, insertedEnd, delta)) {
+                sync(checkpoint, candidate, added, editEnd, delta);
+                return;
+            }
+            int lastEnd = relexed.size() > 0 ? relexed.getStart(relexed.size() - 1) + relexed.getLength(relexed.size() - 1)
+                    : resumeStart - checkpoints.rel(checkpoint);
+            added.add(position, row, pendingStart - lastEnd, firstToken + relexed.size());
+        }
+
+        moveGap(length);
+        lexer.end(length);
+        table.splice(firstToken, table.size(), relexed, 0, 0);
+        checkpoints.replace(checkpoint + 1, checkpoints.size, added);
+    }
+
+    /**
+     * Start of the pending token at the checkpoint, which is the end of the token before it unless chars were dropped
+     */
+    private int start(int checkpoint) {
+        int count = checkpoints.count(checkpoint);
+        int end = count == 0 ? 0 : table.getStart(count - 1) + table.getLength(count - 1);
+        return end + checkpoints.rel(checkpoint);
+    }
+
+    /**
+     * Offset the pending token would have had before the edit, -1 if its text was changed by the edit.
+     * A pending token which started before the edit is unchanged unless it is an identifier, whose type depends on the text.
+     */
+    private static int oldOffset(int pendingStart, int row, int editOffset, int insertedEnd, int delta) {
+        if (pendingStart >= insertedEnd) {
+            return pendingStart - delta;
+        } else if (pendingStart < editOffset && row != IDENTIFIER_ROW) {
+            return pendingStart;
+        }
+        return -1;
+    }
+
+    /**
+     * Relexed tokens replace the old ones up to the matching checkpoint, the rest is moved by delta
+     */
+    private void sync(int checkpoint, int matching, Checkpoints added, int editEnd, int delta) {
+        int firstToken = checkpoints.count(checkpoint);
+        int countDelta = firstToken + relexed.size() - checkpoints.count(matching);
+
+        table.splice(firstToken, checkpoints.count(matching), relexed, editEnd, delta);
+        checkpoints.replace(checkpoint + 1, matching, added);
+        checkpoints.shift(delta, countDelta);
+    }
+
+    /**
+     * Lexer state after all chars before the offset: row, number of tokens so far and the chars between the end
+     * of the last token and the pending token, which the lexer drops after '..'. Checkpoints after the gap keep
+     * offsets and counts relative to the shifts of all edits before them.
+     */
+    private static class Checkpoints {
+        private int[] offsets = new int[16];
+        private int[] rows = new int[offsets.length];
+        private int[] rels = new int[offsets.length];
+        private int[] counts = new int[offsets.length];
+        private int size;
+        private int gapStart;
+        private int offsetShift;
+        private int countShift;
+
+        private void add(int offset, int row, int rel, int count) {
+            moveGap(size);
+            if (size == offsets.length) {
+                grow(size + 1);
+            }
+            offsets[size] = offset;
+            rows[size] = row;
+            rels[size] = rel;
+            counts[size] = count;
+            gapStart = ++size;
+        }
+
+        private int offset(int index) {
+            return index < gapStart ? offsets[index] : offsets[index + offsets.length - size] + offsetShift;
+        }
+
+        private int row(int index) {
+            return rows[index < gapStart ? index : index + offsets.length - size];
+        }
+
+        private int rel(int index) {
+            return rels[index < gapStart ? index : index + offsets.length - size];
+        }
+
+        private int count(int index) {
+            return index < gapStart ? counts[index] : counts[index + offsets.length - size] + countShift;
+        }
+
+        /**
+         * Last checkpoint at or before the offset
+         */
+        private int floor(int offset) {
+            int low = 0;
+            int high = size - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (offset(middle) <= offset) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Replaces checkpoints [from, to) with all checkpoints of the replacement, the gap is left behind them
+         */
+        private void replace(int from, int to, Checkpoints replacement) {
+            moveGap(to);
+            gapStart = from;
+            size -= to - from;
+            if (size + replacement.size > offsets.length) {
+                grow(size + replacement.size);
+            }
+            replacement.moveGap(replacement.size);
+            System.arraycopy(replacement.offsets, 0, offsets, from, replacement.size);
+            System.arraycopy(replacement.rows, 0, rows, from, replacement.size);
+            System.arraycopy(replacement.rels, 0, rels, from, replacement.size);
+            System.arraycopy(replacement.counts, 0, counts, from, replacement.size);
+            gapStart += replacement.size;
+            size += replacement.size;
+        }
+
+        /**
+         * Moves the checkpoints after the gap
+         */
+        private void shift(int delta, int countDelta) {
+            offsetShift += delta;
+            countShift += countDelta;
+        }
+
+        private void moveGap(int index) {
+            int gap = offsets.length - size;
+            if (index < gapStart) {
+                move(index, index + gap, gapStart - index);
+                for (int i = index + gap; i < gapStart + gap; i++) {
+                    offsets[i] -= offsetShift;
+                    counts[i] -= countShift;
+                }
+            } else if (index > gapStart) {
+                move(gapStart + gap, gapStart, index - gapStart);
+                for (int i = gapStart; i < index; i++) {
+                    offsets[i] += offsetShift;
+                    counts[i] += countShift;
+                }
+            }
+            gapStart = index;
+        }
+
+        private void move(int from, int to, int count) {
+            System.arraycopy(offsets, from, offsets, to, count);
+            System.arraycopy(rows, from, rows, to, count);
+            System.arraycopy(rels, from, rels, to, count);
+            System.arraycopy(counts, from, counts, to, count);
+        }
+
+        private void grow(int minCapacity) {
+            int capacity = Math.max(offsets.length * 2, minCapacity);
+            int back = size - gapStart;
+            int[] grownOffsets = Arrays.copyOf(offsets, capacity);
+            int[] grownRows = Arrays.copyOf(rows, capacity);
+            int[] grownRels = Arrays.copyOf(rels, capacity);
+            int[] grownCounts = Arrays.copyOf(counts, capacity);
+            //checkpoints after the gap stay at the end
+            System.arraycopy(offsets, offsets.length - back, grownOffsets, capacity - back, back);
+            System.arraycopy(rows, offsets.length - back, grownRows, capacity - back, back);
+            System.arraycopy(rels, offsets.length - back, grownRels, capacity - back, back);
+            System.arraycopy(counts, offsets.length - back, grownCounts, capacity - back, back);
+            offsets = grownOffsets;
+            rows = grownRows;
+            rels = grownRels;
+            counts = grownCounts;
+        }
+    }
+
+    /**
+     * Live view of the edited text, used as source of the token table
+     */
+    private class Document implements CharSequence {
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+            }
+            return text[index < gapStart ? index : index + text.length - length];
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") of length " + length);
+            }
+            char[] chars = new char[end - start];
+            int front = Math.max(0, Math.min(end, gapStart) - start);
+            System.arraycopy(text, start, chars, 0, front);
+            System.arraycopy(text, start + front + text.length - length, chars, front, chars.length - front);
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
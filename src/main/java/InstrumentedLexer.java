@@ -0,0 +1,30 @@
+/**
+ * {@link TableLexer} which collects {@link LexerStats} for every run and reports them as JFR events.
+ * Lexing without instrumentation uses TableLexer itself, whose loop has no counting.
+ */
+public class InstrumentedLexer extends TableLexer {
+    private LexerStats stats = new LexerStats();
+
+    @Override
+    public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+        LexerEvents.Lex event = new LexerEvents.Lex();
+        event.begin();
+        stats = new LexerStats();
+        long startTime = System.nanoTime();
+        super.tokenize(buf, off, len, new StatsSink(sink, stats));
+        stats.finish(len, System.nanoTime() - startTime);
+        LexerEvents.commit(event, stats);
+    }
+
+    @Override
+    void run(int from, int to) {
+        run(from, to, stats);
+    }
+
+    /**
+     * Stats of the last run
+     */
+    public LexerStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,113 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Classifies a finished identifier as KEYWORD, BOOLEAN_LITERAL, NULL_LITERAL or IDENTIFIER without allocating.
+ * Every reserved word has its own slot of a perfect hash over the length and the first, second and last char,
+ * so a lookup is one hash and at most one comparison. The multipliers were chosen so that no two words collide.
+ * Every overload classifies the range [start, end) of its input.
+ */
+public class KeywordClassifier {
+    private static final String[] KEYWORDS = {
+            "abstract", "continue", "for", "new", "switch",
+            "assert", "default", "goto", "package", "synchronized",
+            "boolean", "do", "if", "private", "this",
+            "break", "double", "implements", "protected", "throw",
+            "byte", "else", "import", "public", "throws",
+            "case", "enum", "instanceof", "return", "transient",
+            "catch", "extends", "int", "short", "try",
+            "char", "final", "interface", "static", "void",
+            "class", "finally", "long", "strictfp", "volatile",
+            "const", "float", "native", "super", "while"
+    };
+    private static final int MIN_LENGTH = 2;
+    //longer identifiers are never looked up, so their text is not needed
+    static final int MAX_LENGTH = 12;
+    private static final int TABLE_SIZE = 256;
+    private static final int MASK = TABLE_SIZE - 1;
+
+    private static final char[][] WORDS = new char[TABLE_SIZE][];
+    private static final Token.TokenType[] TYPES = new Token.TokenType[TABLE_SIZE];
+
+    static {
+        put("true", Token.TokenType.BOOLEAN_LITERAL);
+        put("false", Token.TokenType.BOOLEAN_LITERAL);
+        put("null", Token.TokenType.NULL_LITERAL);
+        for (String keyword : KEYWORDS) {
+            put(keyword, Token.TokenType.KEYWORD);
+        }
+    }
+
+    private static void put(String word, Token.TokenType type) {
+        int slot = hash(word.charAt(0), word.charAt(1), word.charAt(word.length() - 1), word.length());
+        if (WORDS[slot] != null) {
+            throw new IllegalStateException("Hash of " + word + " collides with " + new String(WORDS[slot]));
+        }
+        WORDS[slot] = word.toCharArray();
+        TYPES[slot] = type;
+    }
+
+    private static int hash(int first, int second, int last, int length) {
+        return (first * 7 + second + last * 23 + length) & MASK;
+    }
+
+    public static Token.TokenType classify(char[] buf, int start, int end) {
+        int len = end - start;
+        if (len < MIN_LENGTH || len > MAX_LENGTH) {
+            return Token.TokenType.IDENTIFIER;
+        }
+        int slot = hash(buf[start], buf[start + 1], buf[end - 1], len);
+        char[] word = WORDS[slot];
+        if (word == null || word.length != len) {
+            return Token.TokenType.IDENTIFIER;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buf[start + i] != word[i]) {
+                return Token.TokenType.IDENTIFIER;
+            }
+        }
+        return TYPES[slot];
+    }
+
+    public static Token.TokenType classify(CharSequence source, int start, int end) {
+        int len = end - start;
+        if (len < MIN_LENGTH || len > MAX_LENGTH) {
+            return Token.TokenType.IDENTIFIER;
+        }
+        int slot = hash(source.charAt(start), source.charAt(start + 1), source.charAt(end - 1), len);
+        char[] word = WORDS[slot];
+        if (word == null || word.length != len) {
+            return Token.TokenType.IDENTIFIER;
+        }
+        for (int i = 0; i < len; i++) {
+            if (source.charAt(start + i) != word[i]) {
+                return Token.TokenType.IDENTIFIER;
+            }
+        }
+        return TYPES[slot];
+    }
+
+    /**
+     * Classifies UTF-8 bytes [start, end), reserved words are ASCII so any other byte makes it an identifier
+     */
+    public static Token.TokenType classify(ByteBuffer bytes, int start, int end) {
+        int len = end - start;
+        if (len < MIN_LENGTH || len > MAX_LENGTH) {
+            return Token.TokenType.IDENTIFIER;
+        }
+        int slot = hash(bytes.get(start) & 0xFF, bytes.get(start + 1) & 0xFF, bytes.get(end - 1) & 0xFF, len);
+        char[] word = WORDS[slot];
+        if (word == null || word.length != len) {
+            return Token.TokenType.IDENTIFIER;
+        }
+        for (int i = 0; i < len; i++) {
+            if (bytes.get(start + i) != word[i]) {
+                return Token.TokenType.IDENTIFIER;
+            }
+        }
+        return TYPES[slot];
+    }
+
+    public static boolean isKeyword(CharSequence str) {
+        return classify(str, 0, str.length()) == Token.TokenType.KEYWORD;
+    }
+}
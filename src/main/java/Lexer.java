@@ -1,28 +1,49 @@
-import java.io.IOException;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.CharBuffer;
 
-public class Lexer {
-    private StringBuilder buffer = new StringBuilder();
+public class Lexer implements Tokenizer {
+    private CharSequence source;
+    private int position;
+    private int tokenStart;
     private State state = State.INITIAL_STATE;
-    private List<Token> tokens = new ArrayList<Token>();
+    private TokenSink sink;
 
-    public List<Token> getTokens(Reader reader) throws IOException {
+    public void tokenize(CharSequence source, TokenSink sink) {
+        reset();
+        this.source = source;
+        this.sink = sink;
 
-        int r;
-        while((r = reader.read()) != -1) {
-            Character c = (char) r;
-            processChar(c);
+        for(position = 0; position < source.length(); position++) {
+            processChar(source.charAt(position));
         }
 
         processChar(' ');
+    }
+
+    public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+        reset();
+        this.source = CharBuffer.wrap(buf, off, len).slice();
+        this.sink = sink;
+
+        for(position = 0; position < len; position++) {
+            processChar(buf[off + position]);
+        }
 
-        return tokens;
+        processChar(' ');
     }
 
-    private void processChar(Character c) {
-        buffer.append(c);
+    /**
+     * A state left by the last input, like an unclosed comment, would otherwise leak into the next one
+     */
+    @Override
+    public void reset() {
+        source = null;
+        sink = null;
+        position = 0;
+        tokenStart = 0;
+        state = State.INITIAL_STATE;
+    }
+
+    private void processChar(char c) {
         switch (state) {
             case INVALID_STATE:
                 invalidState(c);
@@ -129,7 +150,7 @@ public class Lexer {
     /**
      * State: INVALID_STATE
      */
-    private void invalidState(Character c) {
+    private void invalidState(char c) {
         createPreviousDataToken(Token.TokenType.ERROR);
         state = State.INITIAL_STATE;
         initialState(c);
@@ -140,17 +161,17 @@ public class Lexer {
      * Buffer: empty
      * Outbound states: ...
      */
-    private void initialState(Character c) {
+    private void initialState(char c) {
         if(c == '/') {
             state = State.SLASH;
-        } else if (Character.isWhitespace(c)) {
+        } else if (CharacterDeterminator.isWhitespace(c)) {
             createToken(Token.TokenType.WHITESPACE);
             state = State.INITIAL_STATE;
-        } else if (Character.isJavaIdentifierStart(c)) {
+        } else if (CharacterDeterminator.isJavaIdentifierStart(c)) {
             state = State.JAVA_IDENTIFIER;
         } else if (c=='0') {
             state = State.ZERO_FIRST;
-        } else if (Character.isDigit(c)) {
+        } else if (CharacterDeterminator.isDigit(c)) {
             state = State.NON_ZERO_DIGIT;
         } else if (c=='\'') {
             state = State.CHAR_LITERAL;
@@ -190,7 +211,7 @@ public class Lexer {
      * Buffer: /
      * Outbound states: /*, //, /= ...
      */
-    private void slashState(Character c) {
+    private void slashState(char c) {
         if(c=='/') {
             state = State.SINGLE_LINE_COMMENT;
         } else if (c=='*') {
@@ -210,25 +231,15 @@ public class Lexer {
      * State: JAVA_IDENTIFIER
      * Buffer: identifier part( c, d3, var, ...)
      */
-    private void javaIdentifierState(Character c) {
-        if(Character.isJavaIdentifierPart(c)) {
+    private void javaIdentifierState(char c) {
+        if(CharacterDeterminator.isJavaIdentifierPart(c)) {
             //nothing changes
         } else if (c=='#') {
             state = State.INVALID_STATE;
-        } else if (Character.isWhitespace(c) || CharacterDeterminator.isOperator(c) || CharacterDeterminator.isSeparator(c) || c=='/') {
-            buffer.deleteCharAt(buffer.length()-1);
+        } else if (CharacterDeterminator.is(c, CharacterDeterminator.WHITESPACE | CharacterDeterminator.OPERATOR | CharacterDeterminator.SEPARATOR)) {
             //when identifier ended
-            if(CharacterDeterminator.isNullLiteral(buffer.toString())) {
-                createToken(Token.TokenType.NULL_LITERAL);
-            } else if (CharacterDeterminator.isBooleanLiteral(buffer.toString())) {
-                createToken(Token.TokenType.BOOLEAN_LITERAL);
-            } else if (CharacterDeterminator.isKeyword(buffer.toString())) {
-                createToken(Token.TokenType.KEYWORD);
-            } else {
-                createToken(Token.TokenType.IDENTIFIER);
-            }
-
-            buffer.append(c);
+            createPreviousDataToken(KeywordClassifier.classify(source, tokenStart, position));
+
             state = State.INITIAL_STATE;
             initialState(c);
         } else {
@@ -240,7 +251,7 @@ public class Lexer {
      * State: ZERO_FIRST
      * Buffer: 0
      */
-    private void zeroFirstState(Character c) {
+    private void zeroFirstState(char c) {
         if(CharacterDeterminator.isOctal(c)) {
             state = State.OCTAL_DIGITS;
         } else if (c=='b' || c=='B') {
@@ -251,7 +262,7 @@ public class Lexer {
             state = State.POINT_IN_DIGIT;
         } else if (c=='l' || c=='L') {
             state = State.INTEGER_SUFIX;
-        } else if (Character.isJavaIdentifierPart(c) || c=='8' || c=='9') {
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c) || c=='8' || c=='9') {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.INT_LITERAL);
@@ -265,8 +276,8 @@ public class Lexer {
      * State: NON_ZERO_DIGIT
      * Buffer: 1..9
      */
-    private void nonZeroDigitState(Character c) {
-        if (Character.isDigit(c)) {
+    private void nonZeroDigitState(char c) {
+        if (CharacterDeterminator.isDigit(c)) {
             //nothing changes
         } else if (c=='.') {
             state = State.POINT_IN_DIGIT;
@@ -274,7 +285,7 @@ public class Lexer {
             state = State.INTEGER_SUFIX;
         } else if (c=='f' || c=='F') {
             state = State.FLOAT_SUFIX;
-        } else if (Character.isJavaIdentifierPart(c)) {
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c)) {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.INT_LITERAL);
@@ -288,10 +299,10 @@ public class Lexer {
      * State: CHAR_LITERAL
      * Buffer: '
      */
-    private void charLiteralState(Character c) {
+    private void charLiteralState(char c) {
         if(c=='\\') {
             state = State.POSSIBLE_ESCAPE_SEQUENCE_CHAR;
-        } else if (Character.isWhitespace(c) && c!=' ' && c!='\t') {
+        } else if (CharacterDeterminator.isWhitespace(c) && c!=' ' && c!='\t') {
             createPreviousDataToken(Token.TokenType.ERROR);
             state = State.INITIAL_STATE;
             initialState(c);
@@ -304,13 +315,13 @@ public class Lexer {
      * State: STRING_LITERAL
      * Buffer: "
      */
-    private void stringLiteralState(Character c) {
+    private void stringLiteralState(char c) {
         if(c=='\\') {
             state = State.POSSIBLE_ESCAPE_SEQUENCE;
         } else if (c=='\"') {
             createToken(Token.TokenType.STRING_LITERAL);
             state = State.INITIAL_STATE;
-        } else if (Character.isWhitespace(c) && c!=' ' && c!='\t') {
+        } else if (CharacterDeterminator.isWhitespace(c) && c!=' ' && c!='\t') {
             createPreviousDataToken(Token.TokenType.ERROR);
             state = State.INITIAL_STATE;
             initialState(c);
@@ -323,8 +334,8 @@ public class Lexer {
      * State: DOT
      * Buffer: .
      */
-    private void dotState(Character c) {
-        if(Character.isDigit(c)) {
+    private void dotState(char c) {
+        if(CharacterDeterminator.isDigit(c)) {
             state = State.POINT_IN_DIGIT;
         } else if (c=='.') {
             state = State.DOUBLE_DOT;
@@ -339,16 +350,15 @@ public class Lexer {
      * State: DOUBLE_DOT
      * Buffer: ..
      */
-    private void doubleDotState(Character c) {
+    private void doubleDotState(char c) {
         if(c=='.') {
             createToken(Token.TokenType.SEPARATOR);
             state = State.INITIAL_STATE;
         } else {
-            buffer = new StringBuilder();
-            buffer.append(".");
-            createToken(Token.TokenType.SEPARATOR);
-            buffer.append(".");
-            createToken(Token.TokenType.SEPARATOR);
+            //buffer is replaced by two dots, current char is lost
+            sink.token(Token.TokenType.SEPARATOR, position - 2, 1);
+            sink.token(Token.TokenType.SEPARATOR, position - 1, 1);
+            tokenStart = position + 1;
 
             state = State.INITIAL_STATE;
         }
@@ -358,7 +368,7 @@ public class Lexer {
      * State: GREATER
      * Buffer: >
      */
-    private void greaterState(Character c) {
+    private void greaterState(char c) {
         if(c=='=') {
             createToken(Token.TokenType.OPERATOR);
             state = State.INITIAL_STATE;
@@ -377,7 +387,7 @@ public class Lexer {
      * State: DOUBLE_GREATER
      * Buffer: >>
      */
-    private void doubleGreaterState(Character c) {
+    private void doubleGreaterState(char c) {
         if(c=='>') {
             createToken(Token.TokenType.OPERATOR);
             state = State.INITIAL_STATE;
@@ -394,7 +404,7 @@ public class Lexer {
      * State: LESS
      * Buffer: <
      */
-    private void lessState(Character c) {
+    private void lessState(char c) {
         if(c=='=') {
             createToken(Token.TokenType.OPERATOR);
             state = State.INITIAL_STATE;
@@ -417,7 +427,7 @@ public class Lexer {
      * State: AMPERSAND
      * Buffer: &
      */
-    private void ampersandState(Character c) {
+    private void ampersandState(char c) {
         if (c == '&') {
             createToken(Token.TokenType.OPERATOR);
             state = State.INITIAL_STATE;
@@ -436,7 +446,7 @@ public class Lexer {
      * State: SINGLE_OPERATOR
      * Buffer: <Operator>
      */
-    private void singleOperatorState(Character c) {
+    private void singleOperatorState(char c) {
         if(c=='=') {
             state = State.OPERATOR_AND_EQUAL;
         } else if (CharacterDeterminator.isOperator(c)) {
@@ -452,7 +462,7 @@ public class Lexer {
      * State: COLON
      * Buffer: :
      */
-    private void colonState(Character c) {
+    private void colonState(char c) {
         if(c==':') {
             createToken(Token.TokenType.SEPARATOR);
             state = State.INITIAL_STATE;
@@ -469,7 +479,7 @@ public class Lexer {
      * State: PLUS
      * Buffer: +
      */
-    private void plusState(Character c) {
+    private void plusState(char c) {
         if(c=='+') {
             state = State.SINGLE_OPERATOR;
         } else if (c=='=') {
@@ -487,7 +497,7 @@ public class Lexer {
      * State: PLUS
      * Buffer: +
      */
-    private void minusState(Character c) {
+    private void minusState(char c) {
         if(c=='-') {
             state = State.SINGLE_OPERATOR;
         } else if (c=='=') {
@@ -505,8 +515,8 @@ public class Lexer {
      * State: SINGLE_LINE_COMMENT
      * Buffer: //...
      */
-    private void singleLineCommentState(Character c) {
-        if(Character.isWhitespace(c) && c!= '\t' && c!=' ') {
+    private void singleLineCommentState(char c) {
+        if(CharacterDeterminator.isWhitespace(c) && c!= '\t' && c!=' ') {
             createPreviousDataToken(Token.TokenType.COMMENT);
             state = State.INITIAL_STATE;
             initialState(c);
@@ -519,7 +529,7 @@ public class Lexer {
      * State: MULTI_LINE_COMMENT
      * Buffer: /*...
      */
-    private void multilineCommentState(Character c) {
+    private void multilineCommentState(char c) {
         if(c=='*') {
             state = State.STAR_IN_MULTI_LINE_COMMENT;
         } else {
@@ -531,7 +541,7 @@ public class Lexer {
      * State: STAR_IN_MULTI_LINE_COMMENT
      * Buffer: /*...*
      */
-    private void starInMultilineCommentState(Character c) {
+    private void starInMultilineCommentState(char c) {
         if(c=='/') {
             createToken(Token.TokenType.COMMENT);
         } else {
@@ -543,7 +553,7 @@ public class Lexer {
      * State: OPERATOR_AND_EQUAL
      * Buffer: <operator>=
      */
-    private void operatorAndEqualState(Character c) {
+    private void operatorAndEqualState(char c) {
          if(CharacterDeterminator.isOperator(c)) {
             state = State.INVALID_STATE;
         } else {
@@ -558,7 +568,7 @@ public class Lexer {
      * State: OPERATOR_AND_EQUAL
      * Buffer: |
      */
-    private void pipeState(Character c) {
+    private void pipeState(char c) {
         if (c=='|') {
            createToken(Token.TokenType.OPERATOR);
            state = State.INITIAL_STATE;
@@ -575,12 +585,12 @@ public class Lexer {
      * State: POINT_IN_DIGIT
      * Buffer: number.number
      */
-    private void pointInDigitState(Character c) {
-        if (Character.isDigit(c)) {
+    private void pointInDigitState(char c) {
+        if (CharacterDeterminator.isDigit(c)) {
             //nothing
         } else if(CharacterDeterminator.isDoubleOrFloat(c)) {
             state = State.FLOAT_SUFIX;
-        } else if (Character.isJavaIdentifierPart(c) || c=='.') {
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c) || c=='.') {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.FLOAT_LITERAL);
@@ -593,8 +603,8 @@ public class Lexer {
      * State: POSSIBLE_ESCAPE_SEQUENCE
      * Buffer: <string>\
      */
-    private void possibleEscapeSequenceState(Character c) {
-        if(CharacterDeterminator.isSpecial("\\" + c)) {
+    private void possibleEscapeSequenceState(char c) {
+        if(CharacterDeterminator.isSpecial(c)) {
             state = State.STRING_LITERAL;
         } else {
             state = State.INVALID_STATE;
@@ -605,8 +615,8 @@ public class Lexer {
      * State: POSSIBLE_ESCAPE_SEQUENCE_CHAR
      * Buffer: <char>\
      */
-    private void possibleEscapeSequenceCharState(Character c) {
-        if (CharacterDeterminator.isSpecial("\\" + c)) {
+    private void possibleEscapeSequenceCharState(char c) {
+        if (CharacterDeterminator.isSpecial(c)) {
             state = State.EXPECT_END_OF_CHAR;
         } else {
             state = State.INVALID_STATE;
@@ -617,7 +627,7 @@ public class Lexer {
      * State: EXPECT_END_OF_CHAR
      * Buffer: '<char>
      */
-    private void expectEndOfCharState(Character c) {
+    private void expectEndOfCharState(char c) {
         if(c=='\'') {
             createToken(Token.TokenType.CHAR_LITERAL);
             state = State.INITIAL_STATE;
@@ -630,7 +640,7 @@ public class Lexer {
      * State: BINARY_DIGIT
      * Buffer: 0..1+
      */
-    private void binaryDigitState(Character c) {
+    private void binaryDigitState(char c) {
         if(CharacterDeterminator.isBinary(c)) {
             //nothing
         } else if (c=='_') {
@@ -639,7 +649,7 @@ public class Lexer {
             state = State.INTEGER_SUFIX;
         } else if (c=='f' || c=='F') {
             state = State.FLOAT_SUFIX;
-        } else if (Character.isJavaIdentifierPart(c)) {
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c)) {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.INT_LITERAL);
@@ -652,7 +662,7 @@ public class Lexer {
      * State: HEX_DIGIT
      * Buffer: 0..F+
      */
-    private void hexDigitState(Character c) {
+    private void hexDigitState(char c) {
         if(CharacterDeterminator.isHex(c)) {
             //nothing
         } else if(c=='_') {
@@ -661,7 +671,7 @@ public class Lexer {
             state = State.INTEGER_SUFIX;
         } else if (c=='f' || c=='F') {
             state = State.FLOAT_SUFIX;
-        } else if (Character.isJavaIdentifierPart(c)) {
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c)) {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.INT_LITERAL);
@@ -674,7 +684,7 @@ public class Lexer {
      * State: OCTAL_DIGIT
      * Buffer: 0..7+
      */
-    private void octalDigitState(Character c) {
+    private void octalDigitState(char c) {
         if(CharacterDeterminator.isOctal(c)) {
             //nothing
         } else if (c=='_') {
@@ -683,7 +693,7 @@ public class Lexer {
             state = State.INTEGER_SUFIX;
         } else if (c=='f' || c=='F') {
             state = State.FLOAT_SUFIX;
-        } else if (Character.isJavaIdentifierPart(c) || c=='8' || c=='9') {
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c) || c=='8' || c=='9') {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.INT_LITERAL);
@@ -696,8 +706,8 @@ public class Lexer {
      * State: INTEGER_SUFIX
      * Buffer: <number>L
      */
-    private void integerSufixState(Character c) {
-        if(Character.isJavaIdentifierPart(c)) {
+    private void integerSufixState(char c) {
+        if(CharacterDeterminator.isJavaIdentifierPart(c)) {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.INT_LITERAL);
@@ -706,8 +716,8 @@ public class Lexer {
         }
     }
 
-    private void floatSufixState(Character c) {
-        if(Character.isJavaIdentifierPart(c)) {
+    private void floatSufixState(char c) {
+        if(CharacterDeterminator.isJavaIdentifierPart(c)) {
             state = State.INVALID_STATE;
         } else {
             createPreviousDataToken(Token.TokenType.FLOAT_LITERAL);
@@ -718,17 +728,12 @@ public class Lexer {
 
 
     private void createToken(Token.TokenType tokenType) {
-        tokens.add(new Token(tokenType, buffer.toString()));
-        buffer = new StringBuilder();
+        sink.token(tokenType, tokenStart, position + 1 - tokenStart);
+        tokenStart = position + 1;
     }
 
     private void createPreviousDataToken(Token.TokenType tokenType) {
-        String previousData = buffer.substring(0, buffer.length() - 1);
-        Character lastSymbol = buffer.charAt(buffer.length()-1);
-
-        tokens.add(new Token(tokenType, previousData));
-        buffer = new StringBuilder();
-
-        buffer.append(lastSymbol);
+        sink.token(tokenType, tokenStart, position - tokenStart);
+        tokenStart = position;
     }
 }
@@ -0,0 +1,106 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection to a {@link LexerServer}. Requests are collected with {@link #file(String)} and {@link #source(CharSequence)}
+ * and sent together by {@link #send()}, which returns one token stream per request in request order.
+ * Not thread-safe, the connection is kept open for further batches.
+ */
+public class LexerClient implements Closeable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final boolean text;
+    private final List<byte[]> requests = new ArrayList<byte[]>();
+    private final List<Integer> kinds = new ArrayList<Integer>();
+
+    /**
+     * Tokens carry their text if text is set, else only offsets
+     */
+    public LexerClient(int port, boolean text) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.text = text;
+    }
+
+    /**
+     * Adds a file to the batch, the path is resolved by the server against its root directory
+     */
+    public LexerClient file(String path) {
+        return add(LexerServer.KIND_FILE, path);
+    }
+
+    /**
+     * Adds inline source to the batch
+     */
+    public LexerClient source(CharSequence source) {
+        return add(LexerServer.KIND_SOURCE, source);
+    }
+
+    private LexerClient add(int kind, CharSequence request) {
+        if (requests.size() == LexerServer.MAX_BATCH) {
+            throw new IllegalStateException("Batch is full");
+        }
+        byte[] bytes = request.toString().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LexerServer.MAX_REQUEST_SIZE) {
+            throw new IllegalArgumentException("Request is too large: " + bytes.length + " bytes");
+        }
+        kinds.add(kind);
+        requests.add(bytes);
+        return this;
+    }
+
+    /**
+     * Sends the batch and waits for all its responses, a request which failed throws with the message of the server
+     */
+    public List<TokenStreamReader> send() throws IOException {
+        out.writeInt(requests.size());
+        out.writeByte(text ? LexerServer.FLAG_TEXT : 0);
+        for (int i = 0; i < requests.size(); i++) {
+            out.writeByte(kinds.get(i));
+            out.writeInt(requests.get(i).length);
+            out.write(requests.get(i));
+        }
+        out.flush();
+
+        List<TokenStreamReader> responses = new ArrayList<TokenStreamReader>(requests.size());
+        IOException error = null;
+        for (int i = 0; i < requests.size(); i++) {
+            int status = in.readUnsignedByte();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            if (status != LexerServer.STATUS_OK) {
+                //the other responses are still read, so the connection stays usable
+                if (error == null) {
+                    error = new IOException("Request " + i + " failed: " + new String(bytes, StandardCharsets.UTF_8));
+                }
+            } else {
+                responses.add(new TokenStreamReader(ByteBuffer.wrap(bytes)));
+            }
+        }
+        requests.clear();
+        kinds.clear();
+
+        if (error != null) {
+            throw error;
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,92 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR events of {@link InstrumentedLexer}: one per run and one per used state and token type.
+ * Record with -XX:StartFlightRecording, the events are in the Lexer category.
+ */
+public class LexerEvents {
+    @Name("lexer.Lex")
+    @Label("Lex")
+    @Category("Lexer")
+    public static class Lex extends Event {
+        @Label("Chars")
+        @DataAmount(DataAmount.BYTES)
+        long chars;
+
+        @Label("Tokens")
+        long tokens;
+
+        @Label("Error Tokens")
+        long errors;
+
+        @Label("Chars per Second")
+        double charsPerSecond;
+
+        @Label("Tokens per Second")
+        double tokensPerSecond;
+    }
+
+    @Name("lexer.StateCount")
+    @Label("State Count")
+    @Category("Lexer")
+    public static class StateCount extends Event {
+        @Label("State")
+        String state;
+
+        @Label("Entered")
+        long entered;
+
+        @Label("Chars")
+        long chars;
+    }
+
+    @Name("lexer.TokenCount")
+    @Label("Token Count")
+    @Category("Lexer")
+    public static class TokenCount extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Count")
+        long count;
+
+        @Label("Length Histogram")
+        String lengths;
+    }
+
+    static void commit(Lex event, LexerStats stats) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.chars = stats.getChars();
+        event.tokens = stats.getTokens();
+        event.errors = stats.getTokenCount(Token.TokenType.ERROR);
+        event.charsPerSecond = stats.getCharsPerSecond();
+        event.tokensPerSecond = stats.getTokensPerSecond();
+        event.commit();
+
+        for (State state : State.values()) {
+            StateCount count = new StateCount();
+            if (count.isEnabled() && (stats.getStateEntries(state) != 0 || stats.getStateChars(state) != 0)) {
+                count.state = state.name();
+                count.entered = stats.getStateEntries(state);
+                count.chars = stats.getStateChars(state);
+                count.commit();
+            }
+        }
+        for (Token.TokenType type : Token.TokenType.values()) {
+            TokenCount count = new TokenCount();
+            if (count.isEnabled() && stats.getTokenCount(type) != 0) {
+                count.type = type.name();
+                count.count = stats.getTokenCount(type);
+                count.lengths = LexerStats.histogram(stats.getLengthHistogram(type));
+                count.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Reuses engines between inputs instead of creating one per call, an engine keeps its grown buffers and warm code.
+ * Engines are not thread-safe: one is either borrowed with {@link #acquire()} and given back with {@link #release(Tokenizer)},
+ * or owned by the calling thread with {@link #local()}.
+ * At most capacity idle engines are kept, when all are borrowed a new one is created and dropped on release.
+ */
+public class LexerPool {
+    private final Supplier<? extends Tokenizer> factory;
+    private final BlockingQueue<Tokenizer> idle;
+    private final ThreadLocal<Tokenizer> local;
+
+    public LexerPool(Supplier<? extends Tokenizer> factory, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.factory = factory;
+        this.idle = new ArrayBlockingQueue<Tokenizer>(capacity);
+        this.local = ThreadLocal.withInitial(factory);
+    }
+
+    /**
+     * An idle engine, or a new one if there is none
+     */
+    public Tokenizer acquire() {
+        Tokenizer lexer = idle.poll();
+        return lexer != null ? lexer : factory.get();
+    }
+
+    /**
+     * Resets the engine and keeps it for the next {@link #acquire()}, it must no longer be used by the caller
+     */
+    public void release(Tokenizer lexer) {
+        lexer.reset();
+        idle.offer(lexer);
+    }
+
+    /**
+     * Engine of the calling thread, not shared with {@link #acquire()}. It must not be used again while it lexes,
+     * for example by a sink which lexes other input.
+     */
+    public Tokenizer local() {
+        return local.get();
+    }
+
+    public void tokenize(CharSequence source, TokenSink sink) {
+        Tokenizer lexer = acquire();
+        try {
+            lexer.tokenize(source, sink);
+        } finally {
+            release(lexer);
+        }
+    }
+
+    public TokenTable tokenize(CharSequence source) {
+        TokenTable table = new TokenTable(source);
+        tokenize(source, table);
+        return table;
+    }
+
+    /**
+     * Number of idle engines
+     */
+    public int idle() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Long running lexing daemon on a loopback socket, so clients skip the JVM startup and lex with warm code.
+ * Every connection gets its own thread, virtual if the runtime has them, and borrows engines from a {@link LexerPool}.
+ * A connection sends batches of requests and gets all responses of a batch in one write, see {@link LexerClient}.
+ * Responses are buffered until the whole batch is read: the client writes all requests before it reads, so a response
+ * sent earlier could fill the socket buffers while the client is still blocked writing.
+ * <pre>
+ * batch:    int request count, flags byte (1: tokens carry their text)
+ * request:  kind byte (1: file path, 2: inline source), int UTF-8 byte count, UTF-8 bytes
+ * response: status byte (0: ok, 1: error), int byte count, token stream of {@link TokenStreamWriter} or UTF-8 error message
+ * </pre>
+ * The connection stays open for further batches until the client closes it.
+ * Any local process can connect, so files are only read below a configured root and requests are limited in size.
+ */
+public class LexerServer implements Closeable {
+    static final int FLAG_TEXT = 1;
+    static final int KIND_FILE = 1;
+    static final int KIND_SOURCE = 2;
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+    static final int MAX_BATCH = 1 << 16;
+    static final int MAX_REQUEST_SIZE = 64 << 20;
+
+    private final ServerSocket socket;
+    private final ExecutorService connections = createExecutor();
+    private final LexerPool lexers;
+    private final Charset charset;
+    private final Path root;
+
+    /**
+     * Listens on the port of the loopback address, 0 picks a free port.
+     * File requests are served for files below root only, none at all if root is null.
+     */
+    public LexerServer(int port, Supplier<? extends Tokenizer> engine, Charset charset, Path root) throws IOException {
+        this.root = root != null ? root.toRealPath() : null;
+        this.socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.lexers = new LexerPool(engine, Runtime.getRuntime().availableProcessors());
+        this.charset = charset;
+    }
+
+    /**
+     * Thread per task, virtual threads on runtimes which have them
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            //before Java 21 platform threads, idle ones are reused
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "lexer-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     */
+    public void serve() throws IOException {
+        while (!socket.isClosed()) {
+            Socket connection;
+            try {
+                connection = socket.accept();
+            } catch (SocketException e) {
+                //closed while waiting
+                return;
+            }
+            connection.setTcpNoDelay(true);
+            connections.execute(() -> handle(connection));
+        }
+    }
+
+    private void handle(Socket connection) {
+        try (Socket ignored = connection) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            ByteArrayOutputStream responses = new ByteArrayOutputStream();
+            DataOutputStream batch = new DataOutputStream(responses);
+            int count;
+            while ((count = readCount(in)) >= 0) {
+                responses.reset();
+                boolean text = (in.readUnsignedByte() & FLAG_TEXT) != 0;
+                for (int i = 0; i < count; i++) {
+                    int kind = in.readUnsignedByte();
+                    int size = in.readInt();
+                    if (size < 0 || size > MAX_REQUEST_SIZE) {
+                        throw new IOException("Invalid request size: " + size);
+                    }
+                    byte[] bytes = new byte[size];
+                    in.readFully(bytes);
+
+                    response.reset();
+                    try {
+                        lex(kind, new String(bytes, StandardCharsets.UTF_8), text, response);
+                        batch.writeByte(STATUS_OK);
+                    } catch (IOException | RuntimeException e) {
+                        response.reset();
+                        response.write(String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+                        batch.writeByte(STATUS_ERROR);
+                    }
+                    batch.writeInt(response.size());
+                    response.writeTo(batch);
+                }
+                responses.writeTo(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the client went away or sent a malformed batch, only its connection is dropped
+        }
+    }
+
+    /**
+     * Request count of the next batch, -1 when the client closed the connection
+     */
+    private static int readCount(DataInputStream in) throws IOException {
+        int count;
+        try {
+            count = in.readInt();
+        } catch (EOFException e) {
+            return -1;
+        }
+        if (count < 0 || count > MAX_BATCH) {
+            throw new IOException("Invalid batch size: " + count);
+        }
+        return count;
+    }
+
+    private void lex(int kind, String request, boolean text, ByteArrayOutputStream response) throws IOException {
+        String source;
+        if (kind == KIND_FILE) {
+            source = new String(Files.readAllBytes(resolve(request)), charset);
+        } else if (kind == KIND_SOURCE) {
+            source = request;
+        } else {
+            throw new IOException("Unknown request kind: " + kind);
+        }
+
+        TokenStreamWriter writer = new TokenStreamWriter(response, text ? source : null);
+        lexers.tokenize(source, writer);
+        writer.flush();
+    }
+
+    /**
+     * Real path of a requested file, which must be a regular file below the root after resolving links
+     */
+    private Path resolve(String request) throws IOException {
+        if (root == null) {
+            throw new IOException("File requests are disabled, the server has no root directory");
+        }
+        Path file;
+        try {
+            file = root.resolve(request).toRealPath();
+        } catch (IOException | InvalidPathException e) {
+            //same answer as for files outside the root, which must not be probed
+            file = null;
+        }
+        if (file == null || !file.startsWith(root) || !Files.isRegularFile(file)) {
+            throw new IOException("Not a file below the root directory: " + request);
+        }
+        if (Files.size(file) > MAX_REQUEST_SIZE) {
+            throw new IOException("File is too large: " + request);
+        }
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connections.shutdown();
+    }
+}
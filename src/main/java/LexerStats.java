@@ -0,0 +1,113 @@
+/**
+ * Counts of one instrumented lexing run, see {@link InstrumentedLexer} and {@link StatsSink}.
+ * Token lengths are kept as histograms with power of two buckets: bucket i counts lengths in [2^i, 2^(i+1)).
+ */
+public class LexerStats {
+    private static final State[] STATES = State.values();
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+    static final int BUCKETS = 32;
+
+    final long[] stateEntries = new long[STATES.length];
+    final long[] stateChars = new long[STATES.length];
+    final long[] tokenCounts = new long[TOKEN_TYPES.length];
+    final long[][] lengthHistograms = new long[TOKEN_TYPES.length][BUCKETS];
+    private long chars;
+    private long elapsedNanos;
+
+    void finish(long chars, long elapsedNanos) {
+        this.chars = chars;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * How often the lexer changed into the state, staying in a state is not counted
+     */
+    public long getStateEntries(State state) {
+        return stateEntries[state.ordinal()];
+    }
+
+    /**
+     * Chars read while in the state, only counted by {@link InstrumentedLexer}
+     */
+    public long getStateChars(State state) {
+        return stateChars[state.ordinal()];
+    }
+
+    public long getTokenCount(Token.TokenType type) {
+        return tokenCounts[type.ordinal()];
+    }
+
+    public long[] getLengthHistogram(Token.TokenType type) {
+        return lengthHistograms[type.ordinal()].clone();
+    }
+
+    public long getTokens() {
+        long tokens = 0;
+        for (long count : tokenCounts) {
+            tokens += count;
+        }
+        return tokens;
+    }
+
+    /**
+     * Share of ERROR tokens in all tokens
+     */
+    public double getErrorRate() {
+        long tokens = getTokens();
+        return tokens == 0 ? 0 : (double) getTokenCount(Token.TokenType.ERROR) / tokens;
+    }
+
+    public long getChars() {
+        return chars;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getCharsPerSecond() {
+        return elapsedNanos == 0 ? 0 : chars * 1e9 / elapsedNanos;
+    }
+
+    public double getTokensPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTokens() * 1e9 / elapsedNanos;
+    }
+
+    static int bucket(int length) {
+        return length <= 0 ? 0 : 31 - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Used buckets as "lower bound: count" pairs
+     */
+    static String histogram(long[] buckets) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != 0) {
+                sb.append(sb.length() == 0 ? "" : ", ").append(1L << i).append(": ").append(buckets[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(chars).append(" chars, ").append(getTokens()).append(" tokens in ").append(elapsedNanos / 1000000).append(" ms, ")
+                .append((long) getCharsPerSecond()).append(" chars/s, ").append((long) getTokensPerSecond()).append(" tokens/s, error rate ")
+                .append(getErrorRate()).append('\n');
+        for (State state : STATES) {
+            if (stateEntries[state.ordinal()] != 0 || stateChars[state.ordinal()] != 0) {
+                sb.append("  ").append(state).append(": entered ").append(stateEntries[state.ordinal()])
+                        .append(", chars ").append(stateChars[state.ordinal()]).append('\n');
+            }
+        }
+        for (Token.TokenType type : TOKEN_TYPES) {
+            if (tokenCounts[type.ordinal()] != 0) {
+                sb.append("  ").append(type).append(": ").append(tokenCounts[type.ordinal()]).append(", lengths ")
+                        .append(histogram(lengthHistograms[type.ordinal()])).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
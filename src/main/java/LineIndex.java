@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+/**
+ * Offsets where lines start, collected while lexing. {@link TableLexer} adds them in its loop over the chars,
+ * see {@link TableLexer#tokenize(CharSequence, TokenSink, LineIndex)}. For other engines put the index in front of
+ * the sink which stores the tokens, it then scans the chars of every token.
+ * Tokens only keep their start offset, line and column are found by binary search when they are asked for.
+ * Line terminators are \n, \r and \r\n like in Java. Lines and columns start at 1, columns count chars.
+ * Chars after the last token, like an unclosed comment, are only indexed by {@link #finish()}.
+ */
+public class LineIndex implements TokenSink {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final CharSequence source;
+    private final TokenSink sink;
+    private int[] lineStarts = new int[INITIAL_CAPACITY];
+    private int lineCount = 1;
+    //chars before it are in the index, includes chars which are in no token, like the one dropped after '..'
+    private int scanned;
+
+    /**
+     * Index which a lexer fills, it is no sink
+     */
+    public LineIndex(CharSequence source) {
+        this(source, null);
+    }
+
+    public LineIndex(CharSequence source, TokenSink sink) {
+        this.source = source;
+        this.sink = sink;
+    }
+
+    /**
+     * Index of the whole source without lexing
+     */
+    public static LineIndex of(CharSequence source) {
+        LineIndex index = new LineIndex(source, (type, start, length) -> {
+        });
+        index.finish();
+        return index;
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        //the whitespace the lexer appends at the end of input is not in the source
+        scan(Math.min(start + length, source.length()));
+        sink.token(type, start, length);
+    }
+
+    /**
+     * Indexes the rest of the source at the end of input
+     */
+    public void finish() {
+        scan(source.length());
+    }
+
+    private void scan(int end) {
+        for (int i = scanned; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 == source.length() || source.charAt(i + 1) != '\n'))) {
+                //\r of \r\n ends the line at the \n
+                lineStart(i + 1);
+            }
+        }
+        indexed(end);
+    }
+
+    /**
+     * Adds the line which starts at the offset, after the ones added so far
+     */
+    void lineStart(int offset) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    /**
+     * The line starts of all chars before the end have been added
+     */
+    void indexed(int end) {
+        scanned = Math.max(scanned, end);
+    }
+
+    /**
+     * Line of the offset, offsets after the source are on its last line
+     */
+    public int getLine(int offset) {
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("Offset: " + offset);
+        }
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    public int getColumn(int offset) {
+        return offset - lineStarts[getLine(offset) - 1] + 1;
+    }
+
+    /**
+     * Offset of the first char of the line
+     */
+    public int getLineStart(int line) {
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Line: " + line + ", lines: " + lineCount);
+        }
+        return lineStarts[line - 1];
+    }
+
+    /**
+     * Number of lines seen so far, a source without line terminators has one
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+}
@@ -1,27 +1,372 @@
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
+    private static final long CACHE_SIZE = 1L << 30;
+    private static final int ALLOCATION_CORPUS_SIZE = 1 << 18;
+    private static final int ALLOCATION_WARM_UP_RUNS = 30;
+    private static final int ALLOCATION_RUNS = 20;
+
     public static void main(String[] args) throws IOException {
-        File f = new File("code.java");
-        InputStream inputStream = new FileInputStream(f);
-        Reader reader = new InputStreamReader(inputStream, Charset.defaultCharset());
-        Reader bufferedReader = new BufferedReader(reader);
+        String fileName = "code.java";
+        String engine = null;
+        boolean time = false;
+        boolean mmap = false;
+        boolean stream = false;
+        boolean batch = false;
+        boolean stats = false;
+        TokenCache cache = null;
+        String binary = null;
+        String fromBinary = null;
+        Highlighter.Format highlight = null;
+        boolean sorted = false;
+        boolean positions = false;
+        Map<Token.TokenType, ChannelFilter.Channel> channels = new EnumMap<>(Token.TokenType.class);
+        boolean mergeWhitespace = false;
+        SymbolTable symbols = null;
+        int serve = -1;
+        int maxTokenLength = 0;
+        AllocationBudget allocationBudget = null;
+        int connect = -1;
+        Path root = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--engine".equals(args[i])) {
+                engine = args[++i];
+            } else if ("--batch".equals(args[i])) {
+                batch = true;
+            } else if ("--threads".equals(args[i])) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--stream".equals(args[i])) {
+                stream = true;
+            } else if ("--mmap".equals(args[i])) {
+                mmap = true;
+            } else if ("--serve".equals(args[i])) {
+                serve = Integer.parseInt(args[++i]);
+            } else if ("--root".equals(args[i])) {
+                root = Paths.get(args[++i]);
+            } else if ("--connect".equals(args[i])) {
+                connect = Integer.parseInt(args[++i]);
+            } else if ("--max-token-length".equals(args[i])) {
+                maxTokenLength = Integer.parseInt(args[++i]);
+            } else if ("--alloc-budget".equals(args[i])) {
+                //bytes per char and bytes per token, like 0.001,0.01
+                String[] budget = args[++i].split(",");
+                allocationBudget = new AllocationBudget(Double.parseDouble(budget[0]), Double.parseDouble(budget[1]));
+            } else if ("--channel".equals(args[i])) {
+                //TYPE=EMIT|COUNT|DROP, like whitespace=drop
+                String[] channel = args[++i].split("=");
+                channels.put(Token.TokenType.valueOf(channel[0].toUpperCase()), ChannelFilter.Channel.valueOf(channel[1].toUpperCase()));
+            } else if ("--merge-whitespace".equals(args[i])) {
+                mergeWhitespace = true;
+            } else if ("--symbols".equals(args[i])) {
+                symbols = new SymbolTable();
+            } else if ("--positions".equals(args[i])) {
+                positions = true;
+            } else if ("--sorted".equals(args[i])) {
+                sorted = true;
+            } else if ("--highlight".equals(args[i])) {
+                highlight = Highlighter.Format.valueOf(args[++i].toUpperCase());
+            } else if ("--binary".equals(args[i])) {
+                binary = args[++i];
+            } else if ("--from-binary".equals(args[i])) {
+                fromBinary = args[++i];
+            } else if ("--cache".equals(args[i])) {
+                cache = new TokenCache(Paths.get(args[++i]), CACHE_SIZE);
+            } else if ("--stats".equals(args[i])) {
+                stats = true;
+            } else if ("--time".equals(args[i])) {
+                time = true;
+            } else {
+                fileName = args[i];
+                files.add(args[i]);
+            }
+        }
+
+        if (mmap && ((engine != null && !"table".equals(engine)) || stats || cache != null)) {
+            throw new IllegalArgumentException("--mmap lexes the bytes with the table engine, it can not be combined with --engine, --stats or --cache");
+        }
+        if ((mmap || cache != null) && (positions || !channels.isEmpty() || mergeWhitespace)) {
+            throw new IllegalArgumentException("--positions, --channel and --merge-whitespace lex the chars, they can not be combined with --mmap or --cache");
+        }
+        if (stats && engine != null && !"table".equals(engine)) {
+            throw new IllegalArgumentException("--stats counts the states of the table engine, it can not be combined with --engine");
+        }
+        if (stream && engine != null && !"table".equals(engine)) {
+            throw new IllegalArgumentException("--stream lexes block by block with the table engine, it can not be combined with --engine");
+        }
+        if (symbols != null && (stream || binary != null || fromBinary != null || highlight != null || serve >= 0 || connect >= 0)) {
+            throw new IllegalArgumentException("--symbols interns the tokens of a table, it can not be combined with --stream, --binary, --from-binary, --highlight, --serve or --connect");
+        }
+        if (engine == null) {
+            engine = "switch";
+        }
 
-        Lexer lexer = new Lexer();
-        List<Token> tokens = lexer.getTokens(bufferedReader);
+        InstrumentedLexer instrumented = stats ? new InstrumentedLexer() : null;
+        Tokenizer lexer = stats ? harden(instrumented, maxTokenLength) : createTokenizer(engine, maxTokenLength);
+        if (allocationBudget != null) {
+            AllocationBudget.Result result = allocationBudget.measure(lexer, AllocationBudget.corpus(ALLOCATION_CORPUS_SIZE),
+                    ALLOCATION_WARM_UP_RUNS, ALLOCATION_RUNS);
+            System.out.println(result);
+            if (!result.isWithinBudget()) {
+                System.exit(1);
+            }
+            return;
+        }
 
-        for(Token token : tokens) {
-            System.out.println(String.format("(%s, %s)", token.getType(), token.getData()));
+        int limit = maxTokenLength;
+        if (batch) {
+            String batchEngine = engine;
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                printBatch(new BatchLexer(pool, () -> createTokenizer(batchEngine, limit), Charset.defaultCharset(), cache, symbols)
+                        .lex(BatchLexer.collect(files)));
+                if (symbols != null) {
+                    System.out.println("  symbols: " + symbols.size());
+                }
+            } finally {
+                pool.shutdown();
+            }
+            return;
+        }
+
+        if (serve >= 0) {
+            String serverEngine = engine;
+            //without a root only inline source is lexed
+            try (LexerServer server = new LexerServer(serve, () -> createTokenizer(serverEngine, limit), Charset.defaultCharset(), root)) {
+                System.err.println("Listening on port " + server.getPort());
+                server.serve();
+            }
+            return;
+        }
+
+        if (connect >= 0) {
+            //paths are resolved by the server, which may run in another directory, and must be below its root
+            try (LexerClient client = new LexerClient(connect, true)) {
+                for (String file : files) {
+                    client.file(Paths.get(file).toAbsolutePath().toString());
+                }
+                for (TokenStreamReader reader : client.send()) {
+                    printBinary(reader);
+                }
+            }
+            return;
+        }
+
+        if (fromBinary != null) {
+            printBinary(TokenStreamReader.open(Paths.get(fromBinary)));
+            return;
+        }
+
+        if (highlight != null) {
+            String source = new String(Files.readAllBytes(Paths.get(fileName)), Charset.defaultCharset());
+            Highlighter highlighter = new Highlighter(new OutputStreamWriter(System.out, Charset.defaultCharset()), source, highlight);
+            lexer.tokenize(source, highlighter);
+            highlighter.finish();
+            return;
+        }
+
+        if (binary != null) {
+            //tokens go to the file while they are lexed
+            String source = new String(Files.readAllBytes(Paths.get(fileName)), Charset.defaultCharset());
+            try (TokenStreamWriter writer = new TokenStreamWriter(new BufferedOutputStream(new FileOutputStream(binary)), source)) {
+                lexer.tokenize(source, writer);
+            }
+            return;
+        }
+
+        if (stream) {
+            printStream(new BufferedReader(new InputStreamReader(new FileInputStream(fileName), Charset.defaultCharset())), maxTokenLength);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        TokenTable tokens;
+        LineIndex lines = null;
+        ChannelFilter filter = null;
+        TokenIndex index = null;
+        if (positions || (sorted && cache == null && !mmap) || !channels.isEmpty() || mergeWhitespace) {
+            //line starts, channels and the type index are all done while lexing:
+            //lines see every token, the index only the stored ones
+            String source = new String(Files.readAllBytes(Paths.get(fileName)), Charset.defaultCharset());
+            tokens = new TokenTable(source);
+            TokenSink stored = tokens;
+            if (sorted) {
+                index = new TokenIndex(tokens);
+                stored = index;
+            }
+            filter = new ChannelFilter(stored).mergeWhitespace(mergeWhitespace);
+            for (Map.Entry<Token.TokenType, ChannelFilter.Channel> channel : channels.entrySet()) {
+                filter.set(channel.getKey(), channel.getValue());
+            }
+            if (positions && lexer instanceof TableLexer) {
+                //the table engine finds the line starts in its own loop
+                lines = new LineIndex(source);
+                ((TableLexer) lexer).tokenize(source, filter, lines);
+            } else if (positions) {
+                lines = new LineIndex(source, filter);
+                lexer.tokenize(source, lines);
+            } else {
+                lexer.tokenize(source, filter);
+            }
+            filter.finish();
+            if (lines != null) {
+                lines.finish();
+            }
+        } else if (cache != null) {
+            tokens = cache.tokenize(Paths.get(fileName), lexer, Charset.defaultCharset());
+        } else if (mmap) {
+            //byte-level lexing of the UTF-8 file, only the table engine supports it, a hardened run stays hardened
+            ByteBuffer bytes = TableLexer.map(Paths.get(fileName));
+            tokens = new TokenTable(new Utf8Source(bytes));
+            ErrorCoalescingSink errors = maxTokenLength > 0 ? new ErrorCoalescingSink(tokens, maxTokenLength) : null;
+            lexer = new TableLexer();
+            ((TableLexer) lexer).tokenize(bytes, errors != null ? errors : tokens);
+            if (errors != null) {
+                errors.finish();
+            }
+        } else {
+            File f = new File(fileName);
+            InputStream inputStream = new FileInputStream(f);
+            Reader reader = new InputStreamReader(inputStream, Charset.defaultCharset());
+            Reader bufferedReader = new BufferedReader(reader);
+
+            tokens = lexer.tokenize(bufferedReader);
+        }
+        if (symbols != null) {
+            tokens.intern(symbols, ForkJoinPool.commonPool());
         }
+        long elapsed = System.nanoTime() - startTime;
+
+        if (sorted) {
+            //a table loaded from the cache or mapped file was not lexed, its index is built from it
+            printSorted(tokens, index != null ? index : TokenIndex.of(tokens), symbols != null);
+        } else {
+            TokenTable.Cursor token = tokens.cursor();
+            while (token.next()) {
+                String symbol = symbols != null ? symbol(tokens, token.getIndex()) : "";
+                if (lines != null) {
+                    System.out.println(String.format("(%s, %s)%s at %d:%d", token.getType(), token.getData(), symbol,
+                            lines.getLine(token.getStart()), lines.getColumn(token.getStart())));
+                } else {
+                    System.out.println(String.format("(%s, %s)%s", token.getType(), token.getData(), symbol));
+                }
+            }
+        }
+
+        if (filter != null) {
+            for (Token.TokenType type : Token.TokenType.values()) {
+                if (filter.getChannel(type) == ChannelFilter.Channel.COUNT) {
+                    System.err.println(type + ": " + filter.getCount(type));
+                }
+            }
+        }
+        if (stats) {
+            System.err.print(instrumented.getStats());
+        }
+        if (time) {
+            System.err.println(String.format("%s: %d tokens in %d ms", lexer.getClass().getSimpleName(), tokens.size(), elapsed / 1000000));
+        }
+    }
+
+    /**
+     * Prints the tokens grouped by type, in source order within a type
+     */
+    private static void printSorted(TokenTable tokens, TokenIndex index, boolean symbols) {
+        for (Token.TokenType type : Token.TokenType.values()) {
+            IntList postings = index.get(type);
+            for (int i = 0; i < postings.size(); i++) {
+                int token = postings.get(i);
+                System.out.println(String.format("(%s, %s)%s", type, tokens.getData(token), symbols ? symbol(tokens, token) : ""));
+            }
+        }
+    }
+
+    /**
+     * Symbol id of an interned identifier as suffix of its line, empty for other tokens
+     */
+    private static String symbol(TokenTable tokens, int index) {
+        int symbol = tokens.getSymbol(index);
+        return symbol != SymbolTable.NO_SYMBOL ? " #" + symbol : "";
+    }
+
+    /**
+     * Prints tokens while the file is lexed, without keeping them in memory
+     */
+    private static void printStream(Reader reader, int maxTokenLength) throws IOException {
+        TokenStream tokens = maxTokenLength > 0 ? new TokenStream(reader, maxTokenLength) : new TokenStream(reader);
+        while (tokens.next()) {
+            System.out.println(String.format("(%s, %s)", tokens.getType(), tokens.getData()));
+        }
+    }
+
+    /**
+     * Prints the tokens of a binary token stream like lexed ones
+     */
+    private static void printBinary(TokenStreamReader tokens) throws IOException {
+        while (tokens.next()) {
+            System.out.println(String.format("(%s, %s)", tokens.getType(), tokens.hasText() ? tokens.getText() : tokens.getStart() + "+" + tokens.getLength()));
+        }
+    }
+
+    /**
+     * Prints one line per file in path order and the totals
+     */
+    private static void printBatch(BatchLexer.Result result) {
+        for (BatchLexer.FileResult file : result.getFiles()) {
+            if (file.getError() != null) {
+                System.out.println(file.getPath() + ": " + file.getError());
+            } else {
+                System.out.println(file.getPath() + ": " + file.getTokens() + " tokens, " + file.getChars() + " chars");
+            }
+        }
+
+        System.out.println(result.getFiles().size() + " files, " + result.getFailed() + " failed, "
+                + result.getTokens() + " tokens, " + result.getChars() + " chars in " + result.getElapsedNanos() / 1000000 + " ms");
+        Token.TokenType[] types = Token.TokenType.values();
+        for (int i = 0; i < types.length; i++) {
+            if (result.getTypeCounts()[i] > 0) {
+                System.out.println("  " + types[i] + ": " + result.getTypeCounts()[i]);
+            }
+        }
+    }
+
+    /**
+     * Engine by name, in the hardened mode if there is a maximum token length
+     */
+    private static Tokenizer createTokenizer(String engine, int maxTokenLength) {
+        if ("switch".equals(engine)) {
+            return harden(new Lexer(), maxTokenLength);
+        } else if ("table".equals(engine)) {
+            return harden(new TableLexer(), maxTokenLength);
+        } else if ("parallel".equals(engine)) {
+            return harden(new ParallelLexer(), maxTokenLength);
+        }
+        throw new IllegalArgumentException("Unknown engine: " + engine);
+    }
 
+    private static Tokenizer harden(Tokenizer engine, int maxTokenLength) {
+        return maxTokenLength > 0 ? new HardenedLexer(engine, maxTokenLength) : engine;
     }
 }
@@ -0,0 +1,47 @@
+/**
+ * Passes tokens on and merges adjacent tokens of one type into one, like a run of junk chars or of whitespace.
+ * The run is held back until the next token, {@link #finish()} passes it on at the end of input.
+ */
+public class MergingSink implements TokenSink {
+    private final TokenSink sink;
+    private final Token.TokenType type;
+    private int runStart = -1;
+    private int runEnd;
+
+    public MergingSink(TokenSink sink, Token.TokenType type) {
+        this.sink = sink;
+        this.type = type;
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        if (type == this.type) {
+            merge(start, length);
+            return;
+        }
+        finish();
+        sink.token(type, start, length);
+    }
+
+    /**
+     * Adds a token of the merged type, which starts a new run unless it follows the current one
+     */
+    void merge(int start, int length) {
+        if (runStart >= 0 && start == runEnd) {
+            runEnd = start + length;
+            return;
+        }
+        finish();
+        runStart = start;
+        runEnd = start + length;
+    }
+
+    /**
+     * Passes on the held back run, if any
+     */
+    public void finish() {
+        if (runStart >= 0) {
+            sink.token(type, runStart, runEnd - runStart);
+            runStart = -1;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes a single large input on several cores, produces the same tokens as {@link Lexer}.
+ * The input is split into chunks at line ends and every chunk is lexed in parallel from the states it most likely
+ * starts in: outside of any token with no pending chars, or inside a multi-line comment. A sequential pass then
+ * follows the real state from chunk to chunk and takes the run which started in it. A comment run takes over the real
+ * start of the comment, which began before the border, since pending chars do not change how a comment is lexed.
+ * If no run fits, the chunk is lexed again from the real state until it meets a checkpoint of the first run.
+ * A CharSequence is copied once, every chunk by the task which lexes it.
+ */
+public class ParallelLexer implements Tokenizer {
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+    private static final int CHECKPOINT_INTERVAL = 4096;
+    private static final int COMMENT_ROW = TransitionTable.rowOf(State.MULTI_LINE_COMMENT);
+    private static final int[] SPECULATED_ROWS = {
+            TransitionTable.rowOf(State.INITIAL_STATE),
+            TransitionTable.rowOf(State.MULTI_LINE_COMMENT)
+    };
+
+    private final ForkJoinPool pool;
+
+    public ParallelLexer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelLexer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void tokenize(CharSequence source, TokenSink sink) {
+        int chunkCount = chunkCount(source.length());
+        if (chunkCount < 2) {
+            new TableLexer().tokenize(source, sink);
+            return;
+        }
+        lex(new char[source.length()], 0, source.length(), split(source, 0, source.length(), chunkCount), source, sink);
+    }
+
+    public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+        int chunkCount = chunkCount(len);
+        if (chunkCount < 2) {
+            new TableLexer().tokenize(buf, off, len, sink);
+            return;
+        }
+        lex(buf, off, len, split(CharBuffer.wrap(buf), off, len, chunkCount), null, sink);
+    }
+
+    private int chunkCount(int len) {
+        return pool.getParallelism() < 2 ? 1 : Math.min(pool.getParallelism() * 4, len / MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Lexes the chunks of buf in parallel, a chunk is first copied from the source if there is one
+     */
+    private void lex(char[] buf, int off, int len, int[] bounds, CharSequence source, TokenSink sink) {
+        List<ForkJoinTask<Speculation[]>> runs = new ArrayList<ForkJoinTask<Speculation[]>>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            final int chunk = i;
+            runs.add(pool.submit(new Callable<Speculation[]>() {
+                public Speculation[] call() {
+                    if (source != null) {
+                        copy(source, bounds[chunk], bounds[chunk + 1], buf);
+                    }
+                    return speculate(buf, off, bounds[chunk], bounds[chunk + 1], chunk == 0);
+                }
+            }));
+        }
+
+        TableLexer lexer = new TableLexer();
+        int row = TransitionTable.INITIAL_ROW;
+        int pendingStart = off;
+        for (int i = 0; i < runs.size(); i++) {
+            Speculation[] speculations = runs.get(i).join();
+            Speculation run = null;
+            for (Speculation speculation : speculations) {
+                //pending chars change how the first tokens are lexed, like junk before a '..', but not in a comment
+                if (speculation.startRow == row && (pendingStart == speculation.start || row == COMMENT_ROW)) {
+                    run = speculation;
+                }
+            }
+
+            if (run != null && pendingStart < run.start) {
+                //the comment started before the border: its first token, or the pending start, is the real one
+                if (run.tokens.size() > 0) {
+                    int start = pendingStart - off;
+                    sink.token(run.tokens.getType(0), start, run.tokens.getStart(0) + run.tokens.getLength(0) - start);
+                    emit(run.tokens, 1, sink);
+                }
+                row = run.endRow;
+                pendingStart = run.tokens.size() > 0 ? run.endPendingStart : pendingStart;
+            } else if (run != null) {
+                emit(run.tokens, 0, sink);
+                row = run.endRow;
+                pendingStart = run.endPendingStart;
+            } else {
+                int[] state = resync(lexer, speculations[0], buf, off, row, pendingStart, bounds[i + 1], sink);
+                row = state[0];
+                pendingStart = state[1];
+            }
+        }
+
+        lexer.resume(buf, off, row, pendingStart, sink);
+        lexer.end(off + len);
+    }
+
+    /**
+     * Chunk borders right after a line end near equal parts of the input
+     */
+    private static int[] split(CharSequence buf, int off, int len, int chunkCount) {
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = off;
+        int count = 1;
+        for (int i = 1; i < chunkCount; i++) {
+            int border = off + (int) ((long) len * i / chunkCount);
+            int limit = Math.min(border + MIN_CHUNK_SIZE / 2, off + len);
+            int newline = border;
+            while (newline < limit && buf.charAt(newline) != '\n') {
+                newline++;
+            }
+            border = newline < limit ? newline + 1 : border;
+            if (border > bounds[count - 1]) {
+                bounds[count++] = border;
+            }
+        }
+        bounds[count++] = off + len;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static void copy(CharSequence source, int start, int end, char[] chars) {
+        if (source instanceof String) {
+            ((String) source).getChars(start, end, chars, start);
+        } else if (source instanceof StringBuilder) {
+            ((StringBuilder) source).getChars(start, end, chars, start);
+        } else {
+            for (int i = start; i < end; i++) {
+                chars[i] = source.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Lexes the chunk from every speculated state, the first run also records checkpoints
+     */
+    private static Speculation[] speculate(char[] buf, int off, int start, int end, boolean first) {
+        int runCount = first ? 1 : SPECULATED_ROWS.length;
+        Speculation[] speculations = new Speculation[runCount];
+        TableLexer lexer = new TableLexer();
+        for (int i = 0; i < runCount; i++) {
+            TokenTable tokens = i == 0 ? new TokenTable(null, (end - start) / 4) : new TokenTable(null);
+            Speculation speculation = new Speculation(SPECULATED_ROWS[i], start, tokens);
+            lexer.resume(buf, off, speculation.startRow, start, speculation.tokens);
+            if (i == 0) {
+                for (int position = start; position < end; ) {
+                    int next = Math.min(position + CHECKPOINT_INTERVAL, end);
+                    lexer.run(position, next);
+                    position = next;
+                    speculation.checkpoint(position, lexer.row(), lexer.pendingStart());
+                }
+            } else {
+                lexer.run(start, end);
+            }
+            speculation.endRow = lexer.row();
+            speculation.endPendingStart = lexer.pendingStart();
+            speculations[i] = speculation;
+        }
+        return speculations;
+    }
+
+    /**
+     * Lexes the chunk from the real state until it matches a checkpoint of the first speculative run
+     */
+    private static int[] resync(TableLexer lexer, Speculation run, char[] buf, int off, int row, int pendingStart, int end, TokenSink sink) {
+        TokenTable tokens = new TokenTable(null);
+        lexer.resume(buf, off, row, pendingStart, tokens);
+
+        int position = run.start;
+        for (int i = 0; i < run.checkpointCount; i++) {
+            lexer.run(position, run.offsets[i]);
+            position = run.offsets[i];
+            if (lexer.row() == run.rows[i] && lexer.pendingStart() == run.pendingStarts[i]) {
+                emit(tokens, 0, sink);
+                emit(run.tokens, run.counts[i], sink);
+                return new int[]{run.endRow, run.endPendingStart};
+            }
+        }
+
+        lexer.run(position, end);
+        emit(tokens, 0, sink);
+        return new int[]{lexer.row(), lexer.pendingStart()};
+    }
+
+    private static void emit(TokenTable tokens, int from, TokenSink sink) {
+        if (sink instanceof TokenTable) {
+            ((TokenTable) sink).append(tokens, from, tokens.size());
+            return;
+        }
+        for (int i = from; i < tokens.size(); i++) {
+            sink.token(tokens.getType(i), tokens.getStart(i), tokens.getLength(i));
+        }
+    }
+
+    /**
+     * Tokens of a chunk lexed from an assumed state with an empty buffer at the chunk start
+     */
+    private static class Speculation {
+        private final int startRow;
+        private final int start;
+        private final TokenTable tokens;
+        private int endRow;
+        private int endPendingStart;
+
+        private int[] offsets = new int[16];
+        private int[] rows = new int[offsets.length];
+        private int[] pendingStarts = new int[offsets.length];
+        private int[] counts = new int[offsets.length];
+        private int checkpointCount;
+
+        private Speculation(int startRow, int start, TokenTable tokens) {
+            this.startRow = startRow;
+            this.start = start;
+            this.tokens = tokens;
+        }
+
+        private void checkpoint(int offset, int row, int pendingStart) {
+            if (checkpointCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, checkpointCount * 2);
+                rows = Arrays.copyOf(rows, checkpointCount * 2);
+                pendingStarts = Arrays.copyOf(pendingStarts, checkpointCount * 2);
+                counts = Arrays.copyOf(counts, checkpointCount * 2);
+            }
+            offsets[checkpointCount] = offset;
+            rows[checkpointCount] = row;
+            pendingStarts[checkpointCount] = pendingStart;
+            counts[checkpointCount] = tokens.size();
+            checkpointCount++;
+        }
+    }
+}
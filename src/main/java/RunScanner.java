@@ -0,0 +1,34 @@
+/**
+ * Finds the end of a run of chars which keep the lexer in the same comment or string state without emitting tokens.
+ * {@link TableLexer} skips such runs and hands the char found back to the transition table.
+ * Uses {@link VectorRunScanner} when the jdk.incubator.vector module is available, else a scalar loop.
+ */
+interface RunScanner {
+    RunScanner INSTANCE = select();
+
+    /**
+     * MULTI_LINE_COMMENT: index of the next '*' in buf[from, to), to if there is none
+     */
+    int skipComment(char[] buf, int from, int to);
+
+    /**
+     * SINGLE_LINE_COMMENT: index of the next char which may be a line end: a control char other than tab or a char above Latin-1
+     */
+    int skipLine(char[] buf, int from, int to);
+
+    /**
+     * STRING_LITERAL: like {@link #skipLine(char[], int, int)}, also stops at a quote or backslash
+     */
+    int skipString(char[] buf, int from, int to);
+
+    static RunScanner select() {
+        if (Boolean.parseBoolean(System.getProperty("lexer.vector", "true"))) {
+            try {
+                return (RunScanner) Class.forName("VectorRunScanner").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                //not compiled or the module is not added with --add-modules jdk.incubator.vector
+            }
+        }
+        return new ScalarRunScanner();
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * One char at a time, used when the Vector API is not available and for the tail of a vector scan
+ */
+class ScalarRunScanner implements RunScanner {
+    public int skipComment(char[] buf, int from, int to) {
+        int i = from;
+        while (i < to && buf[i] != '*') {
+            i++;
+        }
+        return i;
+    }
+
+    public int skipLine(char[] buf, int from, int to) {
+        int i = from;
+        while (i < to && !mayEndLine(buf[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    public int skipString(char[] buf, int from, int to) {
+        int i = from;
+        char c;
+        while (i < to && (c = buf[i]) != '"' && c != '\\' && !mayEndLine(c)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Superset of the whitespace which ends a comment or string: all but tab below space, Unicode spaces above Latin-1
+     */
+    static boolean mayEndLine(char c) {
+        return (c < ' ' && c != '\t') || c > 0xFF;
+    }
+}
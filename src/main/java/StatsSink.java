@@ -0,0 +1,18 @@
+/**
+ * Counts the tokens by type and length into {@link LexerStats} and passes them on, works with every engine
+ */
+public class StatsSink implements TokenSink {
+    private final TokenSink sink;
+    private final LexerStats stats;
+
+    public StatsSink(TokenSink sink, LexerStats stats) {
+        this.sink = sink;
+        this.stats = stats;
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        stats.tokenCounts[type.ordinal()]++;
+        stats.lengthHistograms[type.ordinal()][LexerStats.bucket(length)]++;
+        sink.token(type, start, length);
+    }
+}
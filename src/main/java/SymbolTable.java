@@ -0,0 +1,329 @@
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns identifier names into dense int ids, safe to share between lexers running in parallel.
+ * Names are looked up straight from a char range, a String is only created the first time a name is seen.
+ * The hash space is split into stripes with their own lock, so threads interning different names rarely wait.
+ * Every kind of input is looked up by the same probe, through a {@link Name} which compares it with interned names.
+ */
+public class SymbolTable {
+    public static final int NO_SYMBOL = -1;
+
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPE_MASK = (1 << STRIPE_BITS) - 1;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+    private static final int INITIAL_PAGES = 16;
+    private static final int MAX_PAGES = 1 << 16;
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    //names by id, pages are never moved so a name can be read without a lock, only the directory grows
+    private volatile String[][] pages = new String[INITIAL_PAGES][];
+    private final Object pagesLock = new Object();
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    public SymbolTable() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Id of buf[off, off + len), the name gets the next free id if it is new
+     */
+    public int intern(char[] buf, int off, int len) {
+        int hash = 0;
+        for (int i = off; i < off + len; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        return intern(hash, new CharsName(buf, off, len));
+    }
+
+    /**
+     * Id of text[start, end), the name gets the next free id if it is new
+     */
+    public int intern(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return intern(hash, new TextName(text, start, end));
+    }
+
+    /**
+     * Id of the UTF-8 name in bytes[start, end), the same id as for the decoded chars.
+     * Well-formed names are hashed and compared while they are decoded, only malformed ones are decoded into
+     * a String first, so their replacement chars are the ones of the token text.
+     */
+    public int intern(ByteBuffer bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i += sequenceSize(bytes, i)) {
+            int codePoint = codePoint(bytes, i, end);
+            if (codePoint < 0) {
+                ByteBuffer range = bytes.duplicate();
+                ((Buffer) range).limit(end).position(start);
+                return intern(StandardCharsets.UTF_8.decode(range));
+            }
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                hash = 31 * hash + codePoint;
+            } else {
+                hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+            }
+        }
+        return intern(hash, new Utf8Name(bytes, start, end));
+    }
+
+    public int intern(CharSequence name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Name of an id returned by this table
+     */
+    public String name(int id) {
+        if (id < 0 || id >= nextId.get()) {
+            throw new IllegalArgumentException("Unknown symbol id: " + id);
+        }
+        return pages[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    /**
+     * Number of distinct names, ids are 0 until size - 1
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    /**
+     * Id of the name with the hash of its chars, the name gets the next free id if it is new
+     */
+    private int intern(int hash, Name name) {
+        hash = spread(hash);
+        Stripe stripe = stripes[hash & STRIPE_MASK];
+        synchronized (stripe) {
+            int slot = stripe.slot(hash);
+            for (int id; (id = stripe.ids[slot] - 1) != NO_SYMBOL; slot = (slot + 1) & (stripe.ids.length - 1)) {
+                if (stripe.hashes[slot] == hash && name.matches(name(id))) {
+                    return id;
+                }
+            }
+            return add(stripe, slot, hash, name.create());
+        }
+    }
+
+    private int add(Stripe stripe, int slot, int hash, String name) {
+        int id = nextId.getAndIncrement();
+        page(id >>> PAGE_BITS)[id & PAGE_MASK] = name;
+
+        stripe.ids[slot] = id + 1;
+        stripe.hashes[slot] = hash;
+        if (++stripe.size * 2 > stripe.ids.length) {
+            stripe.rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Page of names, the directory and the page are created when the first id of the page is added
+     */
+    private String[] page(int index) {
+        String[][] directory = pages;
+        if (index < directory.length && directory[index] != null) {
+            return directory[index];
+        }
+        synchronized (pagesLock) {
+            directory = pages;
+            if (index >= directory.length) {
+                if (index >= MAX_PAGES) {
+                    throw new IllegalStateException("Symbol table is full");
+                }
+                directory = Arrays.copyOf(directory, Math.min(MAX_PAGES, Math.max(index + 1, directory.length * 2)));
+            }
+            if (directory[index] == null) {
+                directory[index] = new String[1 << PAGE_BITS];
+            }
+            //the volatile write publishes the new page and directory
+            pages = directory;
+            return directory[index];
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Bytes of the UTF-8 sequence by its lead byte, 1 for bytes which lead no sequence
+     */
+    private static int sequenceSize(ByteBuffer bytes, int i) {
+        int lead = bytes.get(i) & 0xFF;
+        return lead < 0xC2 ? 1 : lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : lead < 0xF5 ? 4 : 1;
+    }
+
+    /**
+     * Code point of the sequence at the offset, -1 if it is malformed or ends after end
+     */
+    private static int codePoint(ByteBuffer bytes, int i, int end) {
+        int lead = bytes.get(i) & 0xFF;
+        if (lead < 0x80) {
+            return lead;
+        }
+        int size = sequenceSize(bytes, i);
+        if (size == 1 || i + size > end) {
+            return -1;
+        }
+        int codePoint = lead & (0x7F >> size);
+        for (int k = 1; k < size; k++) {
+            int b = bytes.get(i + k) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                return -1;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        //overlong forms, surrogates and code points after the last one are malformed too
+        if ((size == 3 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint)))
+                || (size == 4 && (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT))) {
+            return -1;
+        }
+        return codePoint;
+    }
+
+    /**
+     * Name being looked up, compared with interned names without creating a String for it
+     */
+    private interface Name {
+        boolean matches(String name);
+
+        /**
+         * The name as String, once it is added
+         */
+        String create();
+    }
+
+    private static final class CharsName implements Name {
+        private final char[] buf;
+        private final int off;
+        private final int len;
+
+        private CharsName(char[] buf, int off, int len) {
+            this.buf = buf;
+            this.off = off;
+            this.len = len;
+        }
+
+        public boolean matches(String name) {
+            if (name.length() != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (name.charAt(i) != buf[off + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public String create() {
+            return new String(buf, off, len);
+        }
+    }
+
+    private static final class TextName implements Name {
+        private final CharSequence text;
+        private final int start;
+        private final int end;
+
+        private TextName(CharSequence text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        public boolean matches(String name) {
+            if (name.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (name.charAt(i - start) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public String create() {
+            return text.subSequence(start, end).toString();
+        }
+    }
+
+    /**
+     * Well-formed UTF-8, compared while it is decoded
+     */
+    private static final class Utf8Name implements Name {
+        private final ByteBuffer bytes;
+        private final int start;
+        private final int end;
+
+        private Utf8Name(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        public boolean matches(String name) {
+            int k = 0;
+            for (int i = start; i < end; i += sequenceSize(bytes, i)) {
+                int codePoint = codePoint(bytes, i, end);
+                if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    if (k >= name.length() || name.charAt(k++) != codePoint) {
+                        return false;
+                    }
+                } else if (k + 1 >= name.length() || name.charAt(k++) != Character.highSurrogate(codePoint)
+                        || name.charAt(k++) != Character.lowSurrogate(codePoint)) {
+                    return false;
+                }
+            }
+            return k == name.length();
+        }
+
+        public String create() {
+            ByteBuffer range = bytes.duplicate();
+            ((Buffer) range).limit(end).position(start);
+            return StandardCharsets.UTF_8.decode(range).toString();
+        }
+    }
+
+    /**
+     * Open addressing hash set of ids, guarded by its own monitor: id + 1 per slot, 0 if the slot is free
+     */
+    private static class Stripe {
+        private int[] ids = new int[64];
+        private int[] hashes = new int[ids.length];
+        private int size;
+
+        private int slot(int hash) {
+            return (hash >>> STRIPE_BITS) & (ids.length - 1);
+        }
+
+        private void rehash() {
+            int[] oldIds = ids;
+            int[] oldHashes = hashes;
+            ids = new int[oldIds.length * 2];
+            hashes = new int[ids.length];
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != 0) {
+                    int slot = slot(oldHashes[i]);
+                    while (ids[slot] != 0) {
+                        slot = (slot + 1) & (ids.length - 1);
+                    }
+                    ids[slot] = oldIds[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+    }
+}
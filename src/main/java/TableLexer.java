@@ -0,0 +1,382 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Table-driven engine, produces the same tokens as {@link Lexer}.
+ * Runs a single loop over {@link TransitionTable} instead of dispatching every char by state.
+ */
+public class TableLexer implements Tokenizer {
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+    private static final int MULTI_LINE_COMMENT_ROW = TransitionTable.rowOf(State.MULTI_LINE_COMMENT);
+    private static final int SINGLE_LINE_COMMENT_ROW = TransitionTable.rowOf(State.SINGLE_LINE_COMMENT);
+
+    private char[] chars = new char[BLOCK_SIZE];
+    private char[] source;
+    private Utf8Source utf8;
+    private ByteBuffer utf8Bytes;
+    private int sourceStart;
+    private int row;
+    private int tokenStart;
+    private TokenSink sink;
+
+    public void tokenize(CharSequence source, TokenSink sink) {
+        tokenize(copy(source), 0, source.length(), sink);
+    }
+
+    public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+        begin(buf, off, sink);
+        run(off, off + len);
+        end(off + len);
+    }
+
+    /**
+     * Like {@link #tokenize(CharSequence, TokenSink)} and adds the line starts to the index on the way,
+     * so the source is not scanned for them again
+     */
+    public void tokenize(CharSequence source, TokenSink sink, LineIndex lines) {
+        tokenize(copy(source), 0, source.length(), sink, lines);
+    }
+
+    public void tokenize(char[] buf, int off, int len, TokenSink sink, LineIndex lines) {
+        begin(buf, off, sink);
+        run(off, off + len, lines);
+        end(off + len);
+        lines.indexed(len);
+    }
+
+    /**
+     * Source in the reusable char buffer
+     */
+    private char[] copy(CharSequence source) {
+        int length = source.length();
+        if (chars.length < length) {
+            chars = new char[length];
+        }
+
+        if (source instanceof String) {
+            ((String) source).getChars(0, length, chars, 0);
+        } else if (source instanceof StringBuilder) {
+            ((StringBuilder) source).getChars(0, length, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = source.charAt(i);
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Keeps the char buffer at its grown size
+     */
+    @Override
+    public void reset() {
+        source = null;
+        utf8 = null;
+        utf8Bytes = null;
+        sink = null;
+        sourceStart = 0;
+        row = TransitionTable.INITIAL_ROW;
+        tokenStart = 0;
+    }
+
+    /**
+     * Starts lexing input which begins at buf[off], chars are then fed with {@link #run(int, int)}
+     */
+    void begin(char[] buf, int off, TokenSink sink) {
+        this.source = buf;
+        this.utf8 = null;
+        this.utf8Bytes = null;
+        this.sourceStart = off;
+        this.sink = sink;
+        row = TransitionTable.INITIAL_ROW;
+        tokenStart = off;
+    }
+
+    /**
+     * Continues lexing from a saved state, see {@link #row()} and {@link #pendingStart()}
+     */
+    void resume(char[] buf, int off, int row, int tokenStart, TokenSink sink) {
+        begin(buf, off, sink);
+        this.row = row;
+        this.tokenStart = tokenStart;
+    }
+
+    /**
+     * Current state as row of {@link TransitionTable}
+     */
+    int row() {
+        return row;
+    }
+
+    /**
+     * Index in the buffer where the pending token starts, chars before it are no longer needed
+     */
+    int pendingStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Continues in a buffer holding the same input moved left by shift chars
+     */
+    void moveBuffer(char[] buf, int shift) {
+        source = buf;
+        sourceStart -= shift;
+        tokenStart -= shift;
+    }
+
+    /**
+     * Lexes a memory-mapped file as UTF-8 bytes, token offsets are byte offsets into the file
+     */
+    public TokenTable tokenize(Path path) throws IOException {
+        return tokenize(map(path));
+    }
+
+    /**
+     * Read-only mapping of the whole file, for {@link #tokenize(ByteBuffer, TokenSink)}
+     */
+    static ByteBuffer map(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
+    public TokenTable tokenize(ByteBuffer bytes) {
+        TokenTable table = new TokenTable(new Utf8Source(bytes));
+        tokenize(bytes, table);
+        return table;
+    }
+
+    /**
+     * Lexes UTF-8 bytes from the position to the limit, token offsets are byte offsets relative to the position.
+     * ASCII bytes go through the table directly, only other sequences are decoded.
+     * Both chars of a surrogate pair share the offset of the sequence.
+     */
+    public void tokenize(ByteBuffer bytes, TokenSink sink) {
+        this.source = null;
+        this.utf8 = new Utf8Source(bytes);
+        this.utf8Bytes = utf8.getBytes();
+        this.sourceStart = 0;
+        this.sink = sink;
+        row = TransitionTable.INITIAL_ROW;
+        tokenStart = 0;
+
+        byte[] classes = TransitionTable.CHAR_CLASSES;
+        int[] transitions = TransitionTable.TRANSITIONS;
+        int base = bytes.position();
+        int length = bytes.remaining();
+
+        int i = 0;
+        while (i < length) {
+            byte b = bytes.get(base + i);
+            if (b >= 0) {
+                int entry = transitions[row + classes[b]];
+                if ((entry & TransitionTable.EMITS_MASK) != 0) {
+                    emit(entry, i, i + 1);
+                }
+                row = entry & TransitionTable.NEXT_MASK;
+                i++;
+            } else {
+                i = decode(bytes, base, i, length);
+            }
+        }
+
+        end(length);
+    }
+
+    /**
+     * Decodes and lexes the non-ASCII sequence at the offset, malformed bytes are replacement chars
+     */
+    private int decode(ByteBuffer bytes, int base, int i, int length) {
+        int lead = bytes.get(base + i) & 0xFF;
+        int size;
+        int codePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            size = 2;
+            codePoint = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            size = 3;
+            codePoint = lead & 0x0F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            size = 4;
+            codePoint = lead & 0x07;
+        } else {
+            step('\uFFFD', i, i + 1);
+            return i + 1;
+        }
+
+        for (int k = 1; k < size; k++) {
+            int b = i + k < length ? bytes.get(base + i + k) & 0xFF : 0;
+            if ((b & 0xC0) != 0x80) {
+                step('\uFFFD', i, i + 1);
+                return i + 1;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+
+        if ((size == 3 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint))) || (size == 4 && (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT))) {
+            step('\uFFFD', i, i + 1);
+            return i + 1;
+        }
+
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            step((char) codePoint, i, i + size);
+        } else {
+            step(Character.highSurrogate(codePoint), i, i);
+            step(Character.lowSurrogate(codePoint), i, i + size);
+        }
+        return i + size;
+    }
+
+    private void step(char c, int start, int end) {
+        int entry = TransitionTable.TRANSITIONS[row + TransitionTable.CHAR_CLASSES[c]];
+        if ((entry & TransitionTable.EMITS_MASK) != 0) {
+            emit(entry, start, end);
+        }
+        row = entry & TransitionTable.NEXT_MASK;
+    }
+
+    /**
+     * Same trailing whitespace as Lexer
+     */
+    void end(int position) {
+        step(' ', position, position + 1);
+    }
+
+    void run(int from, int to) {
+        char[] chars = this.source;
+        byte[] classes = TransitionTable.CHAR_CLASSES;
+        int[] transitions = TransitionTable.TRANSITIONS;
+        int row = this.row;
+
+        for (int i = from; i < to; i++) {
+            int entry = transitions[row + classes[chars[i]]];
+            row = entry & TransitionTable.NEXT_MASK;
+            if ((entry & TransitionTable.EMITS_MASK) != 0) {
+                emit(entry, i, i + 1);
+                if ((entry & TransitionTable.SKIP_MASK) != 0) {
+                    i = skip(row, chars, i + 1, to) - 1;
+                }
+            }
+        }
+
+        this.row = row;
+    }
+
+    /**
+     * Same as {@link #run(int, int)} and adds the start of every line after a terminator to the index, to is the end
+     * of input. Block comments are read char by char, the run scanner does not stop at line ends in them.
+     * A separate loop, so lexing without an index has no check for line ends in it.
+     */
+    void run(int from, int to, LineIndex lines) {
+        char[] chars = this.source;
+        byte[] classes = TransitionTable.CHAR_CLASSES;
+        int[] transitions = TransitionTable.TRANSITIONS;
+        int row = this.row;
+
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            //\r of \r\n ends the line at the \n
+            if (c <= '\r' && (c == '\n' || (c == '\r' && (i + 1 == to || chars[i + 1] != '\n')))) {
+                lines.lineStart(i + 1 - sourceStart);
+            }
+            int entry = transitions[row + classes[c]];
+            row = entry & TransitionTable.NEXT_MASK;
+            if ((entry & TransitionTable.EMITS_MASK) != 0) {
+                emit(entry, i, i + 1);
+                if ((entry & TransitionTable.SKIP_MASK) != 0 && row != MULTI_LINE_COMMENT_ROW) {
+                    i = skip(row, chars, i + 1, to) - 1;
+                }
+            }
+        }
+
+        this.row = row;
+    }
+
+    /**
+     * Same as {@link #run(int, int)} and counts for every state how often it is entered and how many chars it reads.
+     * A separate loop, so lexing without stats has no counting in it.
+     */
+    void run(int from, int to, LexerStats stats) {
+        char[] chars = this.source;
+        byte[] classes = TransitionTable.CHAR_CLASSES;
+        int[] transitions = TransitionTable.TRANSITIONS;
+        long[] entered = stats.stateEntries;
+        long[] read = stats.stateChars;
+        int row = this.row;
+
+        for (int i = from; i < to; i++) {
+            int entry = transitions[row + classes[chars[i]]];
+            read[row / TransitionTable.CLASS_COUNT]++;
+            int next = entry & TransitionTable.NEXT_MASK;
+            if (next != row) {
+                entered[next / TransitionTable.CLASS_COUNT]++;
+            }
+            row = next;
+            if ((entry & TransitionTable.EMITS_MASK) != 0) {
+                emit(entry, i, i + 1);
+                if ((entry & TransitionTable.SKIP_MASK) != 0) {
+                    int stop = skip(row, chars, i + 1, to);
+                    read[row / TransitionTable.CLASS_COUNT] += stop - i - 1;
+                    i = stop - 1;
+                }
+            }
+        }
+
+        this.row = row;
+    }
+
+    /**
+     * Index of the next char in [from, to) which may leave the comment or string of the row
+     */
+    private static int skip(int row, char[] chars, int from, int to) {
+        if (row == MULTI_LINE_COMMENT_ROW) {
+            return RunScanner.INSTANCE.skipComment(chars, from, to);
+        } else if (row == SINGLE_LINE_COMMENT_ROW) {
+            return RunScanner.INSTANCE.skipLine(chars, from, to);
+        }
+        return RunScanner.INSTANCE.skipString(chars, from, to);
+    }
+
+    /**
+     * Emits the tokens of the entry for the current char at [start, end)
+     */
+    private void emit(int entry, int start, int end) {
+        int previous = (entry >>> TransitionTable.PREVIOUS_SHIFT) & TransitionTable.TOKEN_MASK;
+        if (previous == TransitionTable.IDENTIFIER_END) {
+            createToken(identifierType(tokenStart, start), start);
+        } else if (previous != 0) {
+            createToken(TOKEN_TYPES[previous - 1], start);
+        }
+
+        int current = (entry >>> TransitionTable.CURRENT_SHIFT) & TransitionTable.TOKEN_MASK;
+        if (current == TransitionTable.DOUBLE_DOT_SPLIT) {
+            //buffer is replaced by two dots, current char is lost
+            tokenStart = start - 2;
+            createToken(Token.TokenType.SEPARATOR, start - 1);
+            createToken(Token.TokenType.SEPARATOR, start);
+            tokenStart = end;
+        } else if (current != 0) {
+            createToken(TOKEN_TYPES[current - 1], end);
+        }
+    }
+
+    private Token.TokenType identifierType(int start, int end) {
+        return utf8 != null
+                ? KeywordClassifier.classify(utf8Bytes, start, end)
+                : KeywordClassifier.classify(source, start, end);
+    }
+
+    private void createToken(Token.TokenType tokenType, int end) {
+        sink.token(tokenType, tokenStart - sourceStart, end - tokenStart);
+        tokenStart = end;
+    }
+}
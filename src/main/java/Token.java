@@ -7,10 +7,34 @@ public class Token {
     }
 
     private TokenType type;
-    private String data;
+    private CharSequence source;
+    private int start;
+    private int length;
 
     public Token(TokenType type, String data) {
+        this(type, data, 0, data.length());
+    }
+
+    public Token(TokenType type, CharSequence source, int start, int length) {
         this.type = type;
-        this.data = data;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    /**
+     * Text of the token, taken from the source on demand.
+     * The last token may end one char past the source with the whitespace the lexer appends to the input.
+     */
+    public String getData() {
+        return text(source, start, length);
+    }
+
+    public static String text(CharSequence source, int start, int length) {
+        int end = start + length;
+        if (end > source.length()) {
+            return source.subSequence(start, source.length()) + " ";
+        }
+        return source.subSequence(start, end).toString();
     }
 }
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of token tables keyed by the SHA-256 of the file content, the charset, the tokenizer configuration
+ * and the lexer version.
+ * A hit reads the entry through a memory mapping into the arrays of a table instead of lexing. Entries are written
+ * to a temporary file and moved in place, so processes sharing the directory never see half written entries.
+ * When the directory grows over its size limit the least recently used entries are deleted under a file lock,
+ * down to a lower mark so that the directory is not listed again on every store.
+ */
+public class TokenCache {
+    /**
+     * Part of every key, must change whenever the tokens of some input change
+     */
+    public static final String LEXER_VERSION = "lexer-1";
+
+    private static final int MAGIC = 0x4C585443;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final String SUFFIX = ".tokens";
+    private static final String LOCK_FILE = "cache.lock";
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+    private static final double EVICTION_MARK = 0.75;
+
+    private final Path directory;
+    private final long maxBytes;
+    //size of the directory as seen by this process, -1 until it is listed the first time
+    private final AtomicLong size = new AtomicLong(-1);
+
+    public TokenCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Tokens of the file from the cache, lexed and stored if the content was not seen before
+     */
+    public TokenTable tokenize(Path file, Tokenizer lexer, Charset charset) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        String source = new String(content, charset);
+        //offsets are char offsets, so the same bytes decoded with another charset are another entry
+        String key = key(content, charset, configuration(lexer));
+
+        TokenTable table = load(key, source);
+        if (table == null) {
+            table = lexer.tokenize(source);
+            store(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Engine and options of the tokenizer; a hardened lexer coalesces errors and cuts long tokens,
+     * so its tables differ from those of the engine it wraps
+     */
+    static String configuration(Tokenizer lexer) {
+        if (lexer instanceof HardenedLexer) {
+            HardenedLexer hardened = (HardenedLexer) lexer;
+            return "hardened(" + hardened.getMaxTokenLength() + "," + configuration(hardened.getEngine()) + ")";
+        }
+        return lexer.getClass().getName();
+    }
+
+    /**
+     * Hex SHA-256 of the lexer version, the charset, the tokenizer configuration and the content
+     */
+    static String key(byte[] content, Charset charset, String configuration) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update((LEXER_VERSION + '\0' + charset.name() + '\0' + configuration + '\0').getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest(content);
+
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Table of the entry, null if there is none or it does not fit the source
+     */
+    TokenTable load(String key, CharSequence source) throws IOException {
+        Path entry = directory.resolve(key + SUFFIX);
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (bytes.capacity() < HEADER_SIZE || bytes.getInt(0) != MAGIC || bytes.getInt(4) != FORMAT_VERSION || bytes.getInt(8) != source.length()) {
+            return null;
+        }
+        int count = bytes.getInt(12);
+        if (bytes.capacity() != HEADER_SIZE + align(count) + count * 8L) {
+            return null;
+        }
+
+        byte[] types = new byte[count];
+        int[] starts = new int[count];
+        int[] lengths = new int[count];
+        bytes.position(HEADER_SIZE);
+        bytes.get(types);
+        bytes.position(HEADER_SIZE + align(count));
+        bytes.asIntBuffer().get(starts);
+        bytes.position(HEADER_SIZE + align(count) + count * 4);
+        bytes.asIntBuffer().get(lengths);
+        //a corrupt entry is a miss, not an exception when the text of a token is read
+        long previousEnd = 0;
+        for (int i = 0; i < count; i++) {
+            //the lexer appends a whitespace, so the last token may end one char after the source
+            long end = (long) starts[i] + lengths[i];
+            if (types[i] < 0 || types[i] >= TOKEN_TYPES.length || starts[i] < previousEnd || lengths[i] < 0 || end > source.length() + 1L) {
+                return null;
+            }
+            previousEnd = end;
+        }
+
+        touch(entry);
+        return new TokenTable(source, types, starts, lengths, count);
+    }
+
+    /**
+     * Writes the entry unless another process already did, then evicts if the cache is too large
+     */
+    void store(String key, TokenTable table) throws IOException {
+        Path entry = directory.resolve(key + SUFFIX);
+        if (Files.exists(entry)) {
+            return;
+        }
+
+        int count = table.size();
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE + align(count) + count * 8);
+        bytes.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(table.getSource().length()).putInt(count);
+        for (int i = 0; i < count; i++) {
+            bytes.put((byte) table.getType(i).ordinal());
+        }
+        bytes.position(HEADER_SIZE + align(count));
+        for (int i = 0; i < count; i++) {
+            bytes.putInt(table.getStart(i));
+        }
+        for (int i = 0; i < count; i++) {
+            bytes.putInt(table.getLength(i));
+        }
+        bytes.flip();
+
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        if (size.get() < 0) {
+            size.compareAndSet(-1, list(new ArrayList<Path>()));
+        } else {
+            size.addAndGet(bytes.limit());
+        }
+        //entries of other processes are only seen when the directory is listed again for eviction
+        if (size.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is below the eviction mark of its size limit
+     */
+    private void evict() throws IOException {
+        //one evicting thread per process, the file lock keeps other processes out
+        synchronized (TokenCache.class) {
+            if (size.get() <= maxBytes) {
+                //evicted by another thread while waiting
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                //listed again, another process may have evicted meanwhile
+                List<Path> entries = new ArrayList<Path>();
+                long total = list(entries);
+                Map<Path, Long> times = new HashMap<Path, Long>();
+                for (Path entry : entries) {
+                    times.put(entry, lastUsed(entry));
+                }
+                entries.sort(Comparator.comparingLong(times::get));
+
+                long mark = (long) (maxBytes * EVICTION_MARK);
+                for (int i = 0; i < entries.size() && total > mark; i++) {
+                    Path entry = entries.get(i);
+                    long entrySize = sizeOf(entry);
+                    if (Files.deleteIfExists(entry)) {
+                        total -= entrySize;
+                    }
+                }
+                size.set(total);
+            }
+        }
+    }
+
+    /**
+     * Adds all entries to the list, returns their total size
+     */
+    private long list(List<Path> entries) throws IOException {
+        long size = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+                size += sizeOf(entry);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Marks the entry as used, the modification time is the LRU clock
+     */
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            //evicted by another process meanwhile, the mapped table is still valid
+        }
+    }
+
+    private static long lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry).toMillis();
+        } catch (IOException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static long sizeOf(Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Type bytes padded to the int arrays behind them
+     */
+    private static int align(int count) {
+        return (count + 3) & ~3;
+    }
+}
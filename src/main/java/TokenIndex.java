@@ -0,0 +1,52 @@
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Token indices by type, collected while lexing: put it in front of the sink which stores the tokens.
+ * The indices count the tokens passed through, so they are indices into a table which was empty before.
+ * Every list is in token order, a query for one type takes time in the number of its tokens.
+ */
+public class TokenIndex implements TokenSink {
+    private final TokenSink sink;
+    private final Map<Token.TokenType, IntList> postings = new EnumMap<Token.TokenType, IntList>(Token.TokenType.class);
+    private int count;
+
+    public TokenIndex(TokenSink sink) {
+        this.sink = sink;
+        for (Token.TokenType type : Token.TokenType.values()) {
+            postings.put(type, new IntList());
+        }
+    }
+
+    /**
+     * Index of the tokens of an already filled table
+     */
+    public static TokenIndex of(TokenTable table) {
+        TokenIndex index = new TokenIndex((type, start, length) -> {
+        });
+        for (int i = 0; i < table.size(); i++) {
+            index.token(table.getType(i), table.getStart(i), table.getLength(i));
+        }
+        return index;
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        postings.get(type).add(count++);
+        sink.token(type, start, length);
+    }
+
+    /**
+     * Indices of all tokens of the type in token order, the list must not be changed
+     */
+    public IntList get(Token.TokenType type) {
+        return postings.get(type);
+    }
+
+    public int count(Token.TokenType type) {
+        return postings.get(type).size();
+    }
+
+    public int size() {
+        return count;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Receives tokens from a lexer as they are produced, without a {@link Token} object per token.
+ * Offsets are relative to the start of the lexed input.
+ */
+public interface TokenSink {
+    void token(Token.TokenType type, int start, int length);
+}
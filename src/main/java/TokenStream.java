@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based lexing of a Reader with {@link TableLexer}.
+ * The input is read and lexed one block at a time when the tokens of the previous block are used up,
+ * so memory stays bounded by the block size plus the longest token, not by the input size.
+ * With a maximum token length the stream is hardened like {@link HardenedLexer}: longer tokens are errors, adjacent
+ * errors are merged by an {@link ErrorCoalescingSink}, and the text of longer tokens is not kept, which bounds memory
+ * for any input.
+ */
+public class TokenStream {
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+
+    private final Reader reader;
+    private final int maxTokenLength;
+    private final TableLexer lexer = new TableLexer();
+    private final Queue queue = new Queue();
+    private final ErrorCoalescingSink errors;
+
+    private char[] window = new char[Tokenizer.BLOCK_SIZE];
+    private int windowStart;
+    private int filled;
+    private boolean finished;
+
+    private int current = -1;
+
+    public TokenStream(Reader reader) {
+        this.reader = reader;
+        this.maxTokenLength = Integer.MAX_VALUE;
+        this.errors = null;
+        lexer.begin(window, 0, queue);
+    }
+
+    /**
+     * Hardened stream, keeps at most maxTokenLength chars of a pending token, see {@link #getData()}
+     */
+    public TokenStream(Reader reader, int maxTokenLength) {
+        this.reader = reader;
+        this.maxTokenLength = maxTokenLength;
+        this.errors = new ErrorCoalescingSink(queue, maxTokenLength);
+        lexer.begin(window, 0, errors);
+    }
+
+    /**
+     * Moves to the next token, false at the end of input
+     */
+    public boolean next() throws IOException {
+        current++;
+        while (current == queue.size) {
+            if (finished) {
+                return false;
+            }
+            queue.size = 0;
+            current = 0;
+            fill();
+        }
+        return true;
+    }
+
+    public Token.TokenType getType() {
+        return TOKEN_TYPES[queue.types[checkCurrent()]];
+    }
+
+    /**
+     * Offset of the token from the start of input
+     */
+    public int getStart() {
+        return queue.starts[checkCurrent()];
+    }
+
+    public int getLength() {
+        return queue.lengths[checkCurrent()];
+    }
+
+    /**
+     * Text of the current token, taken from the block in memory.
+     * Of a token longer than the maximum token length, or of merged errors, only the chars which are still in memory
+     * are returned.
+     */
+    public String getData() {
+        int start = getStart() - windowStart;
+        int length = getLength();
+        if (start < 0) {
+            length += start;
+            start = 0;
+        }
+        if (start + length > filled) {
+            //whitespace appended at the end of input
+            return new String(window, start, filled - start) + " ";
+        }
+        return new String(window, start, length);
+    }
+
+    /**
+     * Iterator over the remaining tokens, every token owns its text
+     */
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+            private boolean ready;
+            private boolean hasNext;
+
+            public boolean hasNext() {
+                if (!ready) {
+                    try {
+                        hasNext = TokenStream.this.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    ready = true;
+                }
+                return hasNext;
+            }
+
+            public Token next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return new Token(getType(), getData());
+            }
+        };
+    }
+
+    /**
+     * Reads the next block and lexes it into the queue
+     */
+    private void fill() throws IOException {
+        int retain = lexer.pendingStart();
+        if (filled - retain > Math.max(maxTokenLength, KeywordClassifier.MAX_LENGTH)) {
+            //text of the overlong token is dropped, the lexer only needs its offsets
+            retain = filled;
+        }
+        if (retain > 0) {
+            System.arraycopy(window, retain, window, 0, filled - retain);
+            filled -= retain;
+            windowStart += retain;
+            lexer.moveBuffer(window, retain);
+        }
+        if (window.length - filled < Tokenizer.BLOCK_SIZE) {
+            //pending token does not fit, the window grows with the longest token, doubling keeps the copying linear
+            window = Arrays.copyOf(window, Math.max(filled + Tokenizer.BLOCK_SIZE, window.length * 2));
+            lexer.moveBuffer(window, 0);
+        }
+
+        int read = reader.read(window, filled, window.length - filled);
+        if (read == -1) {
+            lexer.end(filled);
+            if (errors != null) {
+                errors.finish();
+            }
+            finished = true;
+        } else {
+            lexer.run(filled, filled + read);
+            filled += read;
+        }
+    }
+
+    private int checkCurrent() {
+        if (current < 0 || current >= queue.size) {
+            throw new IllegalStateException("No current token");
+        }
+        return current;
+    }
+
+    /**
+     * Tokens of the last block, offsets are made absolute
+     */
+    private class Queue implements TokenSink {
+        private byte[] types = new byte[64];
+        private int[] starts = new int[types.length];
+        private int[] lengths = new int[types.length];
+        private int size;
+
+        public void token(Token.TokenType type, int start, int length) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            types[size] = (byte) type.ordinal();
+            starts[size] = start;
+            lengths[size] = length;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a token stream written by {@link TokenStreamWriter}. The file is memory-mapped and
+ * every call of {@link #next()} decodes one token, nothing is decoded up front.
+ */
+public class TokenStreamReader {
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+    private static final int HEADER_SIZE = 6;
+
+    private final ByteBuffer bytes;
+    private final boolean text;
+    private int position = HEADER_SIZE;
+
+    private Token.TokenType type;
+    private int start;
+    private int length;
+    private int textStart;
+    private int textLength;
+    private int previousEnd;
+
+    public TokenStreamReader(ByteBuffer bytes) throws IOException {
+        this.bytes = bytes.slice();
+        if (this.bytes.limit() < HEADER_SIZE || this.bytes.getInt(0) != TokenStreamWriter.MAGIC) {
+            throw new IOException("Not a token stream");
+        }
+        if (this.bytes.get(4) != TokenStreamWriter.VERSION) {
+            throw new IOException("Unsupported token stream version: " + this.bytes.get(4));
+        }
+        text = (this.bytes.get(5) & TokenStreamWriter.FLAG_TEXT) != 0;
+    }
+
+    public static TokenStreamReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new TokenStreamReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Moves to the next token, false at the end of the stream
+     */
+    public boolean next() throws IOException {
+        if (position >= bytes.limit()) {
+            type = null;
+            return false;
+        }
+        int ordinal = bytes.get(position++);
+        if (ordinal < 0 || ordinal >= TOKEN_TYPES.length) {
+            throw new IOException("Invalid token type " + ordinal + " at " + (position - 1));
+        }
+        type = TOKEN_TYPES[ordinal];
+        int gap = readVarint();
+        start = previousEnd + ((gap >>> 1) ^ -(gap & 1));
+        length = readVarint();
+        if (start < 0 || length < 0) {
+            throw new IOException("Invalid token offsets " + start + "+" + length + " before " + position);
+        }
+        previousEnd = start + length;
+
+        if (text) {
+            textLength = readVarint();
+            textStart = position;
+            if (textLength < 0) {
+                throw new IOException("Invalid token text length " + textLength + " at " + textStart);
+            }
+            //compared without adding, a huge length must not overflow the position
+            if (textLength > bytes.limit() - position) {
+                throw new IOException("Token text is cut off at " + textStart);
+            }
+            position += textLength;
+        }
+        return true;
+    }
+
+    /**
+     * True if the tokens carry their text
+     */
+    public boolean hasText() {
+        return text;
+    }
+
+    public Token.TokenType getType() {
+        checkCurrent();
+        return type;
+    }
+
+    public int getStart() {
+        checkCurrent();
+        return start;
+    }
+
+    public int getLength() {
+        checkCurrent();
+        return length;
+    }
+
+    /**
+     * Text of the current token, only if the stream was written with the source
+     */
+    public String getText() {
+        checkCurrent();
+        if (!text) {
+            throw new IllegalStateException("Token stream has no text");
+        }
+        ByteBuffer range = bytes.duplicate();
+        ((Buffer) range).limit(textStart + textLength).position(textStart);
+        return StandardCharsets.UTF_8.decode(range).toString();
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position >= bytes.limit()) {
+                throw new IOException("Token stream is cut off");
+            }
+            byte b = bytes.get(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint at " + position);
+    }
+
+    private void checkCurrent() {
+        if (type == null) {
+            throw new IllegalStateException("No current token");
+        }
+    }
+}
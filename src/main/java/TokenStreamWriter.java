@@ -0,0 +1,164 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes tokens in the binary token stream format while they are lexed, see {@link TokenStreamReader}.
+ * <pre>
+ * header:  magic "LXTS", version byte, flags byte (1: tokens carry their text)
+ * token:   type ordinal byte, varint zigzag(start - end of previous token), varint length
+ *          [varint UTF-8 byte count, UTF-8 text]
+ * </pre>
+ * Varints are little endian groups of 7 bits, the high bit marks that another group follows.
+ * Text is encoded from the source straight into the block buffer, a full block is written to the output stream
+ * without flushing it, {@link #flush()} and {@link #close()} are left to the caller.
+ */
+public class TokenStreamWriter implements TokenSink, Closeable {
+    static final int MAGIC = 0x4C585453;
+    static final int VERSION = 1;
+    static final int FLAG_TEXT = 1;
+
+    private final OutputStream out;
+    private final CharSequence source;
+    private final byte[] buffer = new byte[Tokenizer.BLOCK_SIZE];
+    private int size;
+    private int previousEnd;
+
+    /**
+     * Writes offsets only
+     */
+    public TokenStreamWriter(OutputStream out) throws IOException {
+        this(out, null);
+    }
+
+    /**
+     * Writes the text of every token from the source too, token offsets must be indices into the source
+     */
+    public TokenStreamWriter(OutputStream out, CharSequence source) throws IOException {
+        this.out = out;
+        this.source = source;
+        writeInt(MAGIC);
+        buffer[size++] = VERSION;
+        buffer[size++] = (byte) (source != null ? FLAG_TEXT : 0);
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        try {
+            if (size > buffer.length - 16) {
+                drain();
+            }
+            buffer[size++] = (byte) type.ordinal();
+            int gap = start - previousEnd;
+            writeVarint((gap << 1) ^ (gap >> 31));
+            writeVarint(length);
+            previousEnd = start + length;
+
+            if (source != null) {
+                writeText(start, length);
+            }
+        } catch (IOException e) {
+            //TokenSink can not throw checked exceptions
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * UTF-8 of the source range, like String.getBytes an unpaired surrogate is '?'.
+     * Chars after the end of the source are the whitespace the lexer appends.
+     */
+    private void writeText(int start, int length) throws IOException {
+        int end = Math.min(start + length, source.length());
+        int appended = start + length - end;
+        writeVarint(utf8Length(start, end) + appended);
+        for (int i = start; i < end; i++) {
+            if (size > buffer.length - 4) {
+                drain();
+            }
+            char c = source.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(source.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, source.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[size++] = '?';
+            } else {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        for (; appended > 0; appended--) {
+            if (size == buffer.length) {
+                drain();
+            }
+            buffer[size++] = ' ';
+        }
+    }
+
+    private int utf8Length(int start, int end) {
+        int length = end - start;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    length++;
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(source.charAt(i + 1))) {
+                    //two chars, four bytes
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            }
+        }
+        return length;
+    }
+
+    private void writeVarint(int value) throws IOException {
+        if (size > buffer.length - 5) {
+            drain();
+        }
+        while ((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes the full block to the output stream, which is not flushed
+     */
+    private void drain() throws IOException {
+        out.write(buffer, 0, size);
+        size = 0;
+    }
+
+    /**
+     * Writes the buffered tokens and flushes the output stream
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
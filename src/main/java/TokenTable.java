@@ -0,0 +1,252 @@
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Tokens stored as parallel primitive arrays: type ordinals, start offsets and lengths into the source.
+ * Identifiers can get a column of symbol ids from a {@link SymbolTable}, see {@link #intern(SymbolTable)}.
+ */
+public class TokenTable implements TokenSink {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_INTERN_PART = 1 << 14;
+    private static final Token.TokenType[] TOKEN_TYPES = Token.TokenType.values();
+
+    private final CharSequence source;
+    //read and spliced in place by GapTokenTable
+    byte[] types;
+    int[] starts;
+    int[] lengths;
+    int size;
+
+    private int[] symbols;
+    private int symbolCount;
+
+    public TokenTable(CharSequence source) {
+        this(source, INITIAL_CAPACITY);
+    }
+
+    public TokenTable(CharSequence source, int capacity) {
+        this.source = source;
+        this.types = new byte[Math.max(capacity, 1)];
+        this.starts = new int[types.length];
+        this.lengths = new int[types.length];
+    }
+
+    /**
+     * Table over filled arrays, which are not copied
+     */
+    TokenTable(CharSequence source, byte[] types, int[] starts, int[] lengths, int size) {
+        this.source = source;
+        this.types = types;
+        this.starts = starts;
+        this.lengths = lengths;
+        this.size = size;
+    }
+
+    public void token(Token.TokenType type, int start, int length) {
+        if (size == types.length) {
+            grow(size + 1);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+    }
+
+    /**
+     * Appends tokens [from, to) of the other table
+     */
+    void append(TokenTable other, int from, int to) {
+        int count = to - from;
+        if (size + count > types.length) {
+            grow(size + count);
+        }
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.starts, from, starts, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        size += count;
+    }
+
+    void clear() {
+        size = 0;
+        dropSymbols();
+    }
+
+    /**
+     * Interns the identifiers which have no symbol id yet, tokens added later are interned by the next call
+     */
+    public void intern(SymbolTable symbolTable) {
+        reserveSymbols();
+        intern(symbolTable, symbolCount, size);
+        symbolCount = size;
+    }
+
+    /**
+     * Like {@link #intern(SymbolTable)}, in parts which are interned in parallel on the pool
+     */
+    public void intern(SymbolTable symbolTable, ForkJoinPool pool) {
+        reserveSymbols();
+        int from = symbolCount;
+        int parts = Math.min(pool.getParallelism() * 4, (size - from) / MIN_INTERN_PART);
+        if (parts < 2) {
+            intern(symbolTable);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(parts);
+        for (int i = 0; i < parts; i++) {
+            int partFrom = from + (int) ((long) (size - from) * i / parts);
+            int partTo = from + (int) ((long) (size - from) * (i + 1) / parts);
+            //the parts write disjoint ranges of the column, join publishes them
+            tasks.add(pool.submit(() -> intern(symbolTable, partFrom, partTo)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        symbolCount = size;
+    }
+
+    private void reserveSymbols() {
+        if (symbols == null || symbols.length < size) {
+            symbols = symbols == null ? new int[size] : Arrays.copyOf(symbols, Math.max(size, symbols.length * 2));
+        }
+    }
+
+    private void intern(SymbolTable symbolTable, int from, int to) {
+        //byte offsets of a UTF-8 source are looked up in its bytes
+        ByteBuffer bytes = source instanceof Utf8Source ? ((Utf8Source) source).getBytes() : null;
+        int identifier = Token.TokenType.IDENTIFIER.ordinal();
+        for (int i = from; i < to; i++) {
+            if (types[i] != identifier) {
+                symbols[i] = SymbolTable.NO_SYMBOL;
+            } else if (bytes != null) {
+                symbols[i] = symbolTable.intern(bytes, starts[i], starts[i] + lengths[i]);
+            } else {
+                symbols[i] = symbolTable.intern(source, starts[i], starts[i] + lengths[i]);
+            }
+        }
+    }
+
+    /**
+     * Symbol id of an identifier, {@link SymbolTable#NO_SYMBOL} for other tokens
+     */
+    public int getSymbol(int index) {
+        if (checkIndex(index) >= symbolCount) {
+            throw new IllegalStateException("Token " + index + " is not interned");
+        }
+        return symbols[index];
+    }
+
+    /**
+     * Ids of tokens which were changed in place do not hold anymore
+     */
+    void dropSymbols() {
+        symbols = null;
+        symbolCount = 0;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(types.length * 2, minCapacity);
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.TokenType getType(int index) {
+        return TOKEN_TYPES[types[checkIndex(index)]];
+    }
+
+    public int getStart(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    public int getLength(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    public String getData(int index) {
+        return Token.text(source, getStart(index), getLength(index));
+    }
+
+    public Token get(int index) {
+        return new Token(getType(index), source, getStart(index), getLength(index));
+    }
+
+    /**
+     * List view over the table, tokens are created on access
+     */
+    public List<Token> asList() {
+        return new TokenList();
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return index;
+    }
+
+    /**
+     * Walks the table without creating objects per token: call {@link #next()} before reading the first token
+     */
+    public class Cursor {
+        private int index = -1;
+
+        public boolean next() {
+            if (index + 1 >= size) {
+                index = size;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Token.TokenType getType() {
+            return TokenTable.this.getType(index);
+        }
+
+        public int getStart() {
+            return TokenTable.this.getStart(index);
+        }
+
+        public int getLength() {
+            return TokenTable.this.getLength(index);
+        }
+
+        public String getData() {
+            return TokenTable.this.getData(index);
+        }
+    }
+
+    private class TokenList extends AbstractList<Token> implements RandomAccess {
+        @Override
+        public Token get(int index) {
+            return TokenTable.this.get(checkIndex(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
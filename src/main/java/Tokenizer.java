@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lexer engine, see {@link Lexer} and {@link TableLexer}
+ */
+public interface Tokenizer {
+    int BLOCK_SIZE = 8192;
+
+    void tokenize(CharSequence source, TokenSink sink);
+
+    /**
+     * Returns to the initial state and drops the references to the last input and sink.
+     * Grown buffers are kept, so a reset engine can lex the next input without allocating.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Lexes buf[off, off + len), token offsets are relative to off
+     */
+    void tokenize(char[] buf, int off, int len, TokenSink sink);
+
+    default TokenTable tokenize(CharSequence source) {
+        TokenTable table = new TokenTable(source);
+        tokenize(source, table);
+        return table;
+    }
+
+    default TokenTable tokenize(char[] buf, int off, int len) {
+        TokenTable table = new TokenTable(CharBuffer.wrap(buf, off, len).slice());
+        tokenize(buf, off, len, table);
+        return table;
+    }
+
+    default TokenTable tokenize(Reader reader) throws IOException {
+        //tokens keep a reference to the chars, so they are not reused between calls
+        char[] chars = new char[BLOCK_SIZE];
+        int length = 0;
+        int read;
+        while ((read = reader.read(chars, length, chars.length - length)) != -1) {
+            length += read;
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+        }
+
+        return tokenize(chars, 0, length);
+    }
+
+    default List<Token> getTokens(Reader reader) throws IOException {
+        return tokenize(reader).asList();
+    }
+
+    default List<Token> getTokens(CharSequence source) {
+        return tokenize(source).asList();
+    }
+
+    default List<Token> getTokens(char[] buf, int off, int len) {
+        return tokenize(buf, off, len).asList();
+    }
+}
@@ -0,0 +1,438 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense transition table compiled from the {@link State} machine of {@link Lexer}.
+ * Every char is mapped to a character class, every (state, class) pair to one int entry
+ * which holds the next state and the tokens emitted on the way.
+ */
+public class TransitionTable {
+    /**
+     * Entry bits 0..15: row of the next state (state ordinal * class count)
+     */
+    static final int NEXT_MASK = 0xFFFF;
+
+    /**
+     * Entry bits 16..20: token emitted from the buffer without the current char (TokenType ordinal + 1)
+     */
+    static final int PREVIOUS_SHIFT = 16;
+
+    /**
+     * Entry bits 21..25: token emitted from the buffer with the current char (TokenType ordinal + 1)
+     */
+    static final int CURRENT_SHIFT = 21;
+
+    /**
+     * Entry bit 26: next state is a comment or string whose runs of ordinary chars are skipped, see {@link RunScanner}
+     */
+    static final int SKIP_MASK = 1 << 26;
+
+    static final int TOKEN_MASK = 0x1F;
+    static final int EMITS_MASK = ~NEXT_MASK;
+
+    /**
+     * Previous token is an identifier, its type depends on the text (keyword, literal, identifier)
+     */
+    static final int IDENTIFIER_END = TOKEN_MASK;
+
+    /**
+     * Current token is '..' followed by not a dot: two separate dots, current char is dropped
+     */
+    static final int DOUBLE_DOT_SPLIT = TOKEN_MASK;
+
+    static final int CLASS_COUNT;
+    static final int INITIAL_ROW;
+    static final byte[] CHAR_CLASSES = new byte[Character.MAX_VALUE + 1];
+    static final int[] TRANSITIONS;
+
+    private static final State[] STATES = State.values();
+
+    static {
+        Map<Column, Integer> classes = new HashMap<Column, Integer>();
+        Column[] columns = new Column[Byte.MAX_VALUE + 1];
+
+        //above Latin-1 only the Character properties tell chars apart, so one char per property set is enough
+        Integer[] unicodeClasses = new Integer[1 << 4];
+
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            int properties = -1;
+            if (c > 0xFF) {
+                properties = unicodeProperties((char) c);
+                if (unicodeClasses[properties] != null) {
+                    CHAR_CLASSES[c] = (byte) (int) unicodeClasses[properties];
+                    continue;
+                }
+            }
+
+            int[] entries = new int[STATES.length];
+            for (State state : STATES) {
+                entries[state.ordinal()] = step(state, (char) c);
+            }
+
+            Column column = new Column(entries);
+            Integer charClass = classes.get(column);
+            if (charClass == null) {
+                charClass = classes.size();
+                if (charClass >= columns.length) {
+                    throw new IllegalStateException("Too many character classes");
+                }
+                classes.put(column, charClass);
+                columns[charClass] = column;
+            }
+            CHAR_CLASSES[c] = (byte) (int) charClass;
+            if (properties != -1) {
+                unicodeClasses[properties] = charClass;
+            }
+        }
+
+        CLASS_COUNT = classes.size();
+        INITIAL_ROW = State.INITIAL_STATE.ordinal() * CLASS_COUNT;
+        TRANSITIONS = new int[STATES.length * CLASS_COUNT];
+        for (int charClass = 0; charClass < CLASS_COUNT; charClass++) {
+            for (State state : STATES) {
+                int entry = columns[charClass].entries[state.ordinal()];
+                int next = (entry & NEXT_MASK) * CLASS_COUNT;
+                int skip = isSkipped(STATES[entry & NEXT_MASK]) ? SKIP_MASK : 0;
+                TRANSITIONS[state.ordinal() * CLASS_COUNT + charClass] = (entry & EMITS_MASK) | skip | next;
+            }
+        }
+    }
+
+    private static boolean isSkipped(State state) {
+        return state == State.MULTI_LINE_COMMENT || state == State.SINGLE_LINE_COMMENT || state == State.STRING_LITERAL;
+    }
+
+    public static State stateOf(int row) {
+        return STATES[row / CLASS_COUNT];
+    }
+
+    public static int rowOf(State state) {
+        return state.ordinal() * CLASS_COUNT;
+    }
+
+    private static int unicodeProperties(char c) {
+        return CharacterDeterminator.flags(c) & (CharacterDeterminator.WHITESPACE | CharacterDeterminator.IDENTIFIER_START
+                | CharacterDeterminator.IDENTIFIER_PART | CharacterDeterminator.DIGIT);
+    }
+
+    /**
+     * Transition of {@link Lexer} for a single char, with the next state as ordinal.
+     * Mirrors the state methods of {@link Lexer} one to one.
+     */
+    private static int step(State state, char c) {
+        switch (state) {
+            case INVALID_STATE:
+                return previous(Token.TokenType.ERROR, initial(c));
+            case INITIAL_STATE:
+                return initial(c);
+            case SLASH:
+                if (c == '/') {
+                    return go(State.SINGLE_LINE_COMMENT);
+                } else if (c == '*') {
+                    return go(State.MULTI_LINE_COMMENT);
+                } else if (c == '=') {
+                    return go(State.OPERATOR_AND_EQUAL);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case JAVA_IDENTIFIER:
+                if (CharacterDeterminator.isJavaIdentifierPart(c)) {
+                    return go(State.JAVA_IDENTIFIER);
+                } else if (c == '#') {
+                    return go(State.INVALID_STATE);
+                } else if (CharacterDeterminator.is(c, CharacterDeterminator.WHITESPACE | CharacterDeterminator.OPERATOR | CharacterDeterminator.SEPARATOR)) {
+                    return (IDENTIFIER_END << PREVIOUS_SHIFT) | initial(c);
+                }
+                return go(State.INVALID_STATE);
+            case ZERO_FIRST:
+                if (CharacterDeterminator.isOctal(c)) {
+                    return go(State.OCTAL_DIGITS);
+                } else if (c == 'b' || c == 'B') {
+                    return go(State.BINARY_DIGITS);
+                } else if (c == 'x' || c == 'X') {
+                    return go(State.HEX_DIGITS);
+                } else if (c == '.') {
+                    return go(State.POINT_IN_DIGIT);
+                } else if (c == 'l' || c == 'L') {
+                    return go(State.INTEGER_SUFIX);
+                } else if (CharacterDeterminator.isJavaIdentifierPart(c) || c == '8' || c == '9') {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.INT_LITERAL, initial(c));
+            case NON_ZERO_DIGIT:
+                if (CharacterDeterminator.isDigit(c)) {
+                    return go(State.NON_ZERO_DIGIT);
+                } else if (c == '.') {
+                    return go(State.POINT_IN_DIGIT);
+                } else if (c == 'l' || c == 'L') {
+                    return go(State.INTEGER_SUFIX);
+                } else if (c == 'f' || c == 'F') {
+                    return go(State.FLOAT_SUFIX);
+                } else if (CharacterDeterminator.isJavaIdentifierPart(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.INT_LITERAL, initial(c));
+            case CHAR_LITERAL:
+                if (c == '\\') {
+                    return go(State.POSSIBLE_ESCAPE_SEQUENCE_CHAR);
+                } else if (CharacterDeterminator.isWhitespace(c) && c != ' ' && c != '\t') {
+                    return previous(Token.TokenType.ERROR, initial(c));
+                }
+                return go(State.EXPECT_END_OF_CHAR);
+            case STRING_LITERAL:
+                if (c == '\\') {
+                    return go(State.POSSIBLE_ESCAPE_SEQUENCE);
+                } else if (c == '\"') {
+                    return emit(Token.TokenType.STRING_LITERAL, State.INITIAL_STATE);
+                } else if (CharacterDeterminator.isWhitespace(c) && c != ' ' && c != '\t') {
+                    return previous(Token.TokenType.ERROR, initial(c));
+                }
+                return go(State.STRING_LITERAL);
+            case DOT:
+                if (CharacterDeterminator.isDigit(c)) {
+                    return go(State.POINT_IN_DIGIT);
+                } else if (c == '.') {
+                    return go(State.DOUBLE_DOT);
+                }
+                return previous(Token.TokenType.SEPARATOR, initial(c));
+            case DOUBLE_DOT:
+                if (c == '.') {
+                    return emit(Token.TokenType.SEPARATOR, State.INITIAL_STATE);
+                }
+                return (DOUBLE_DOT_SPLIT << CURRENT_SHIFT) | go(State.INITIAL_STATE);
+            case GREATER:
+                if (c == '=') {
+                    return emit(Token.TokenType.OPERATOR, State.INITIAL_STATE);
+                } else if (c == '>') {
+                    return go(State.DOUBLE_GREATER);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case DOUBLE_GREATER:
+                if (c == '>') {
+                    return emit(Token.TokenType.OPERATOR, State.INITIAL_STATE);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case LESS:
+                if (c == '=' || c == '>' || c == '<') {
+                    return emit(Token.TokenType.OPERATOR, State.INITIAL_STATE);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case AMPERSAND:
+                if (c == '&') {
+                    return emit(Token.TokenType.OPERATOR, State.INITIAL_STATE);
+                } else if (c == '=') {
+                    return go(State.OPERATOR_AND_EQUAL);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case SINGLE_OPERATOR:
+                if (c == '=') {
+                    return go(State.OPERATOR_AND_EQUAL);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case COLON:
+                if (c == ':') {
+                    return emit(Token.TokenType.SEPARATOR, State.INITIAL_STATE);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case PLUS:
+                if (c == '+') {
+                    return go(State.SINGLE_OPERATOR);
+                } else if (c == '=') {
+                    return go(State.OPERATOR_AND_EQUAL);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INITIAL_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case MINUS:
+                if (c == '-') {
+                    return go(State.SINGLE_OPERATOR);
+                } else if (c == '=') {
+                    return go(State.OPERATOR_AND_EQUAL);
+                } else if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INITIAL_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case PIPE:
+                if (c == '|') {
+                    return emit(Token.TokenType.OPERATOR, State.INITIAL_STATE);
+                } else if (c == '=') {
+                    return go(State.OPERATOR_AND_EQUAL);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case SINGLE_LINE_COMMENT:
+                if (CharacterDeterminator.isWhitespace(c) && c != '\t' && c != ' ') {
+                    return previous(Token.TokenType.COMMENT, initial(c));
+                }
+                return go(State.SINGLE_LINE_COMMENT);
+            case MULTI_LINE_COMMENT:
+                if (c == '*') {
+                    return go(State.STAR_IN_MULTI_LINE_COMMENT);
+                }
+                return go(State.MULTI_LINE_COMMENT);
+            case STAR_IN_MULTI_LINE_COMMENT:
+                if (c == '/') {
+                    return emit(Token.TokenType.COMMENT, State.STAR_IN_MULTI_LINE_COMMENT);
+                }
+                return go(State.MULTI_LINE_COMMENT);
+            case OPERATOR_AND_EQUAL:
+                if (CharacterDeterminator.isOperator(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.OPERATOR, initial(c));
+            case POINT_IN_DIGIT:
+                if (CharacterDeterminator.isDigit(c)) {
+                    return go(State.POINT_IN_DIGIT);
+                } else if (CharacterDeterminator.isDoubleOrFloat(c)) {
+                    return go(State.FLOAT_SUFIX);
+                } else if (CharacterDeterminator.isJavaIdentifierPart(c) || c == '.') {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.FLOAT_LITERAL, initial(c));
+            case POSSIBLE_ESCAPE_SEQUENCE:
+                if (CharacterDeterminator.isSpecial(c)) {
+                    return go(State.STRING_LITERAL);
+                }
+                return go(State.INVALID_STATE);
+            case POSSIBLE_ESCAPE_SEQUENCE_CHAR:
+                if (CharacterDeterminator.isSpecial(c)) {
+                    return go(State.EXPECT_END_OF_CHAR);
+                }
+                return go(State.INVALID_STATE);
+            case EXPECT_END_OF_CHAR:
+                if (c == '\'') {
+                    return emit(Token.TokenType.CHAR_LITERAL, State.INITIAL_STATE);
+                }
+                return go(State.INVALID_STATE);
+            case BINARY_DIGITS:
+                if (CharacterDeterminator.isBinary(c) || c == '_') {
+                    return go(State.BINARY_DIGITS);
+                }
+                return digitsSuffix(State.BINARY_DIGITS, c);
+            case HEX_DIGITS:
+                if (CharacterDeterminator.isHex(c) || c == '_') {
+                    return go(State.HEX_DIGITS);
+                }
+                return digitsSuffix(State.HEX_DIGITS, c);
+            case OCTAL_DIGITS:
+                if (CharacterDeterminator.isOctal(c) || c == '_') {
+                    return go(State.OCTAL_DIGITS);
+                }
+                return digitsSuffix(State.OCTAL_DIGITS, c);
+            case INTEGER_SUFIX:
+                if (CharacterDeterminator.isJavaIdentifierPart(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.INT_LITERAL, initial(c));
+            case FLOAT_SUFIX:
+                if (CharacterDeterminator.isJavaIdentifierPart(c)) {
+                    return go(State.INVALID_STATE);
+                }
+                return previous(Token.TokenType.FLOAT_LITERAL, initial(c));
+            default:
+                throw new IllegalStateException("No such state: " + state);
+        }
+    }
+
+    private static int initial(char c) {
+        if (c == '/') {
+            return go(State.SLASH);
+        } else if (CharacterDeterminator.isWhitespace(c)) {
+            return emit(Token.TokenType.WHITESPACE, State.INITIAL_STATE);
+        } else if (CharacterDeterminator.isJavaIdentifierStart(c)) {
+            return go(State.JAVA_IDENTIFIER);
+        } else if (c == '0') {
+            return go(State.ZERO_FIRST);
+        } else if (CharacterDeterminator.isDigit(c)) {
+            return go(State.NON_ZERO_DIGIT);
+        } else if (c == '\'') {
+            return go(State.CHAR_LITERAL);
+        } else if (c == '\"') {
+            return go(State.STRING_LITERAL);
+        } else if (c == '.') {
+            return go(State.DOT);
+        } else if (CharacterDeterminator.isSeparator(c)) {
+            return emit(Token.TokenType.SEPARATOR, State.INITIAL_STATE);
+        } else if (c == '>') {
+            return go(State.GREATER);
+        } else if (c == '<') {
+            return go(State.LESS);
+        } else if (c == '&') {
+            return go(State.AMPERSAND);
+        } else if (c == '^' || c == '!' || c == '*' || c == '=' || c == '%') {
+            return go(State.SINGLE_OPERATOR);
+        } else if (c == ':') {
+            return go(State.COLON);
+        } else if (c == '+') {
+            return go(State.PLUS);
+        } else if (c == '-') {
+            return go(State.MINUS);
+        } else if (c == '?' || c == '~') {
+            return emit(Token.TokenType.OPERATOR, State.INITIAL_STATE);
+        } else if (c == '#') {
+            return go(State.INVALID_STATE);
+        } else if (c == '|') {
+            return go(State.PIPE);
+        }
+        return go(State.INITIAL_STATE);
+    }
+
+    /**
+     * Shared tail of BINARY_DIGITS, HEX_DIGITS and OCTAL_DIGITS
+     */
+    private static int digitsSuffix(State state, char c) {
+        if (c == 'l' || c == 'L') {
+            return go(State.INTEGER_SUFIX);
+        } else if (c == 'f' || c == 'F') {
+            return go(State.FLOAT_SUFIX);
+        } else if (CharacterDeterminator.isJavaIdentifierPart(c) || (state == State.OCTAL_DIGITS && (c == '8' || c == '9'))) {
+            return go(State.INVALID_STATE);
+        }
+        return previous(Token.TokenType.INT_LITERAL, initial(c));
+    }
+
+    private static int go(State next) {
+        return next.ordinal();
+    }
+
+    private static int emit(Token.TokenType tokenType, State next) {
+        return ((tokenType.ordinal() + 1) << CURRENT_SHIFT) | next.ordinal();
+    }
+
+    private static int previous(Token.TokenType tokenType, int initialEntry) {
+        return ((tokenType.ordinal() + 1) << PREVIOUS_SHIFT) | initialEntry;
+    }
+
+    private static class Column {
+        private final int[] entries;
+        private final int hash;
+
+        private Column(int[] entries) {
+            this.entries = entries;
+            this.hash = Arrays.hashCode(entries);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Column && Arrays.equals(entries, ((Column) o).entries);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 encoded source seen as a CharSequence whose indices are byte offsets.
+ * Used as token source for byte-level lexing, {@link #subSequence(int, int)} decodes the bytes of a token.
+ * Only a token source: {@link #charAt(int)} is a byte, not a char of the text, so it is no general CharSequence
+ * and is not visible outside the lexer.
+ */
+class Utf8Source implements CharSequence {
+    private final ByteBuffer bytes;
+
+    public Utf8Source(ByteBuffer bytes) {
+        this.bytes = bytes.slice();
+    }
+
+    public ByteBuffer getBytes() {
+        return bytes.duplicate();
+    }
+
+    public int length() {
+        return bytes.limit();
+    }
+
+    /**
+     * Byte at the offset as char, non-ASCII bytes give the replacement char
+     */
+    public char charAt(int index) {
+        byte b = bytes.get(index);
+        return b >= 0 ? (char) b : '\uFFFD';
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        ByteBuffer range = bytes.duplicate();
+        ((Buffer) range).limit(end).position(start);
+        return StandardCharsets.UTF_8.decode(range).toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
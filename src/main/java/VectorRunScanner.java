@@ -0,0 +1,56 @@
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares a whole vector of chars per step, the rest of the range which does not fill a vector is scanned by the scalar loop
+ */
+class VectorRunScanner extends ScalarRunScanner {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    public int skipComment(char[] buf, int from, int to) {
+        int i = from;
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+            VectorMask<Short> stops = ShortVector.fromCharArray(SPECIES, buf, i).eq((short) '*');
+            if (stops.anyTrue()) {
+                return i + stops.firstTrue();
+            }
+        }
+        return super.skipComment(buf, i, to);
+    }
+
+    @Override
+    public int skipLine(char[] buf, int from, int to) {
+        int i = from;
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+            VectorMask<Short> stops = mayEndLine(ShortVector.fromCharArray(SPECIES, buf, i));
+            if (stops.anyTrue()) {
+                return i + stops.firstTrue();
+            }
+        }
+        return super.skipLine(buf, i, to);
+    }
+
+    @Override
+    public int skipString(char[] buf, int from, int to) {
+        int i = from;
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+            ShortVector chars = ShortVector.fromCharArray(SPECIES, buf, i);
+            VectorMask<Short> stops = mayEndLine(chars).or(chars.eq((short) '"')).or(chars.eq((short) '\\'));
+            if (stops.anyTrue()) {
+                return i + stops.firstTrue();
+            }
+        }
+        return super.skipString(buf, i, to);
+    }
+
+    /**
+     * Vector form of {@link ScalarRunScanner#mayEndLine(char)}, chars are compared unsigned
+     */
+    private static VectorMask<Short> mayEndLine(ShortVector chars) {
+        return chars.compare(VectorOperators.UNSIGNED_LT, (short) ' ').andNot(chars.eq((short) '\t'))
+                .or(chars.compare(VectorOperators.UNSIGNED_GT, (short) 0xFF));
+    }
+}
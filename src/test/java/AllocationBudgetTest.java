@@ -0,0 +1,51 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The sequential engines lex without allocating once they are warm, see {@link AllocationBudget}
+ */
+public class AllocationBudgetTest {
+    private static final int CORPUS_SIZE = 1 << 18;
+    private static final int WARM_UP_RUNS = 30;
+    private static final int RUNS = 20;
+    private static final AllocationBudget BUDGET = new AllocationBudget(0.001, 0.01);
+
+    @Test
+    public void tableLexer() {
+        assertWithinBudget(new TableLexer());
+    }
+
+    @Test
+    public void switchLexer() {
+        assertWithinBudget(new Lexer());
+    }
+
+    @Test
+    public void hardenedTableLexer() {
+        assertWithinBudget(new HardenedLexer(new TableLexer(), 1 << 16));
+    }
+
+    @Test
+    public void allocatingEngineIsOverBudget() {
+        AllocationBudget.Result result = BUDGET.measure(new Tokenizer() {
+            public void tokenize(CharSequence source, TokenSink sink) {
+                new TableLexer().tokenize(source, sink);
+            }
+
+            public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+                new TableLexer().tokenize(buf, off, len, sink);
+            }
+        }, AllocationBudget.corpus(CORPUS_SIZE), 1, 2);
+        assertFalse(result.toString(), result.isWithinBudget());
+        assertEquals(2L * AllocationBudget.corpus(CORPUS_SIZE).length(), result.getChars());
+    }
+
+    private static void assertWithinBudget(Tokenizer engine) {
+        AllocationBudget.Result result = BUDGET.measure(engine, AllocationBudget.corpus(CORPUS_SIZE), WARM_UP_RUNS, RUNS);
+        assertTrue(result.toString(), result.getTokens() > 0);
+        assertTrue(result.toString(), result.isWithinBudget());
+    }
+}
@@ -0,0 +1,93 @@
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Every engine and input path gives the tokens of {@link BaselineLexer}, compared by type and text
+ */
+public class BaselineDifferentialTest {
+    private static final String CHARS = "abxXlLfFdD_$019 \t\n\r/*=+-<>&|^!%:?~.,;(){}[]'\"\\#@\u0001\u00e9\u0660\u2028";
+    private static final String[] WORDS = {
+            "null", "true", "int", "class", "0x1F", "0b101", "017", "3.14f", "1e5", "..", "...", " /* c */ ", "// x\n",
+            "\"s\\n\"", "\"a..b\"", "'a'", "'\\t'", ">>>=", "<<=", "::", "++", "\n\n", "\r\n"
+    };
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void smallInputs() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            assertSameTokens(generate(random, random.nextInt(80)), false);
+        }
+    }
+
+    /**
+     * Long enough for the parallel engine to split them
+     */
+    @Test
+    public void largeInputs() throws IOException {
+        Random random = new Random(43);
+        for (int i = 0; i < 3; i++) {
+            String input = generate(random, 3 << 16);
+            //a block comment would swallow the rest of the input, keep it to the last chunk
+            input = input.replace("/*", "/ *") + generate(random, 200);
+            assertSameTokens(input, true);
+        }
+    }
+
+    private static String generate(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            if (random.nextInt(4) == 0) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]);
+            } else {
+                sb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameTokens(String input, boolean parallel) throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (BaselineToken token : new BaselineLexer().getTokens(new StringReader(input))) {
+            expected.add(token.getType() + " " + token.getData());
+        }
+
+        assertEquals(input, expected, texts(new Lexer().tokenize(input)));
+        assertEquals(input, expected, texts(new Lexer().tokenize(new StringReader(input))));
+        assertEquals(input, expected, texts(new TableLexer().tokenize(input)));
+        assertEquals(input, expected, texts(new TableLexer().tokenize(CharBuffer.wrap(input))));
+        char[] padded = ("ab" + input + "cd").toCharArray();
+        assertEquals(input, expected, texts(new TableLexer().tokenize(padded, 2, input.length())));
+        assertEquals(input, expected, texts(new TableLexer().tokenize(new StringReader(input))));
+        assertEquals(input, expected, texts(new TableLexer().tokenize(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)))));
+        if (parallel) {
+            assertEquals(input, expected, texts(new ParallelLexer(POOL).tokenize(input)));
+        }
+    }
+
+    private static List<String> texts(TokenTable tokens) {
+        List<String> texts = new ArrayList<>(tokens.size());
+        TokenTable.Cursor token = tokens.cursor();
+        while (token.next()) {
+            texts.add(token.getType() + " " + token.getData());
+        }
+        return texts;
+    }
+}
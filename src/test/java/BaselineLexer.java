@@ -0,0 +1,738 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The switch lexer as it was before the engines, copied unchanged but for the class names.
+ * Reference of {@link BaselineDifferentialTest}: it creates a String per token, so it is only run on small inputs.
+ */
+public class BaselineLexer {
+    private StringBuilder buffer = new StringBuilder();
+    private BaselineState state = BaselineState.INITIAL_STATE;
+    private List<BaselineToken> tokens = new ArrayList<BaselineToken>();
+
+    public List<BaselineToken> getTokens(Reader reader) throws IOException {
+
+        int r;
+        while((r = reader.read()) != -1) {
+            Character c = (char) r;
+            processChar(c);
+        }
+
+        processChar(' ');
+
+        return tokens;
+    }
+
+    private void processChar(Character c) {
+        buffer.append(c);
+        switch (state) {
+            case INVALID_STATE:
+                invalidState(c);
+                break;
+            case INITIAL_STATE:
+                initialState(c);
+                break;
+            case SLASH:
+                slashState(c);
+                break;
+            case JAVA_IDENTIFIER:
+                javaIdentifierState(c);
+                break;
+            case ZERO_FIRST:
+                zeroFirstState(c);
+                break;
+            case NON_ZERO_DIGIT:
+                nonZeroDigitState(c);
+                break;
+            case CHAR_LITERAL:
+                charLiteralState(c);
+                break;
+            case STRING_LITERAL:
+                stringLiteralState(c);
+                break;
+            case DOT:
+                dotState(c);
+                break;
+            case GREATER:
+                greaterState(c);
+                break;
+            case LESS:
+                lessState(c);
+                break;
+            case AMPERSAND:
+                ampersandState(c);
+                break;
+            case SINGLE_OPERATOR:
+                singleOperatorState(c);
+                break;
+            case COLON:
+                colonState(c);
+                break;
+            case PLUS:
+                plusState(c);
+                break;
+            case MINUS:
+                minusState(c);
+                break;
+            case PIPE:
+                pipeState(c);
+                break;
+            case SINGLE_LINE_COMMENT:
+                singleLineCommentState(c);
+                break;
+            case MULTI_LINE_COMMENT:
+                multilineCommentState(c);
+                break;
+            case OCTAL_DIGITS:
+                octalDigitState(c);
+                break;
+            case BINARY_DIGITS:
+                binaryDigitState(c);
+                break;
+            case HEX_DIGITS:
+                hexDigitState(c);
+                break;
+            case INTEGER_SUFIX:
+                integerSufixState(c);
+                break;
+            case POINT_IN_DIGIT:
+                pointInDigitState(c);
+                break;
+            case POSSIBLE_ESCAPE_SEQUENCE_CHAR:
+                possibleEscapeSequenceCharState(c);
+                break;
+            case EXPECT_END_OF_CHAR:
+                expectEndOfCharState(c);
+                break;
+            case POSSIBLE_ESCAPE_SEQUENCE:
+                possibleEscapeSequenceState(c);
+                break;
+            case DOUBLE_GREATER:
+                doubleGreaterState(c);
+                break;
+            case OPERATOR_AND_EQUAL:
+                operatorAndEqualState(c);
+                break;
+            case STAR_IN_MULTI_LINE_COMMENT:
+                starInMultilineCommentState(c);
+                break;
+            case FLOAT_SUFIX:
+                floatSufixState(c);
+                break;
+            case DOUBLE_DOT:
+                doubleDotState(c);
+                break;
+            default:
+                System.out.println("ERROR! NO SUCH STATE");
+        }
+    }
+
+
+    /**
+     * BaselineState: INVALID_STATE
+     */
+    private void invalidState(Character c) {
+        createPreviousDataToken(BaselineToken.TokenType.ERROR);
+        state = BaselineState.INITIAL_STATE;
+        initialState(c);
+    }
+
+    /**
+     * BaselineState: INITIAL_STATE
+     * Buffer: empty
+     * Outbound states: ...
+     */
+    private void initialState(Character c) {
+        if(c == '/') {
+            state = BaselineState.SLASH;
+        } else if (Character.isWhitespace(c)) {
+            createToken(BaselineToken.TokenType.WHITESPACE);
+            state = BaselineState.INITIAL_STATE;
+        } else if (Character.isJavaIdentifierStart(c)) {
+            state = BaselineState.JAVA_IDENTIFIER;
+        } else if (c=='0') {
+            state = BaselineState.ZERO_FIRST;
+        } else if (Character.isDigit(c)) {
+            state = BaselineState.NON_ZERO_DIGIT;
+        } else if (c=='\'') {
+            state = BaselineState.CHAR_LITERAL;
+        } else if (c=='\"') {
+            state = BaselineState.STRING_LITERAL;
+        } else if (c=='.') {
+            state = BaselineState.DOT;
+        } else if (BaselineCharacterDeterminator.isSeparator(c)) {
+            createToken(BaselineToken.TokenType.SEPARATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (c=='>') {
+            state = BaselineState.GREATER;
+        } else if (c=='<') {
+            state = BaselineState.LESS;
+        } else if (c=='&') {
+            state = BaselineState.AMPERSAND;
+        } else if (c == '^' || c == '!' || c == '*' || c == '=' || c == '%') {
+            state = BaselineState.SINGLE_OPERATOR;
+        } else if (c==':') {
+            state = BaselineState.COLON;
+        } else if (c=='+') {
+            state = BaselineState.PLUS;
+        } else if (c=='-') {
+            state = BaselineState.MINUS;
+        } else if (c=='?' || c=='~') {
+            createToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (c=='#') {
+            state = BaselineState.INVALID_STATE;
+        } else if (c=='|') {
+            state = BaselineState.PIPE;
+        }
+    }
+
+    /**
+     * BaselineState: SLASH
+     * Buffer: /
+     * Outbound states: /*, //, /= ...
+     */
+    private void slashState(Character c) {
+        if(c=='/') {
+            state = BaselineState.SINGLE_LINE_COMMENT;
+        } else if (c=='*') {
+            state = BaselineState.MULTI_LINE_COMMENT;
+        } else if (c == '=') {
+            state = BaselineState.OPERATOR_AND_EQUAL;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: JAVA_IDENTIFIER
+     * Buffer: identifier part( c, d3, var, ...)
+     */
+    private void javaIdentifierState(Character c) {
+        if(Character.isJavaIdentifierPart(c)) {
+            //nothing changes
+        } else if (c=='#') {
+            state = BaselineState.INVALID_STATE;
+        } else if (Character.isWhitespace(c) || BaselineCharacterDeterminator.isOperator(c) || BaselineCharacterDeterminator.isSeparator(c) || c=='/') {
+            buffer.deleteCharAt(buffer.length()-1);
+            //when identifier ended
+            if(BaselineCharacterDeterminator.isNullLiteral(buffer.toString())) {
+                createToken(BaselineToken.TokenType.NULL_LITERAL);
+            } else if (BaselineCharacterDeterminator.isBooleanLiteral(buffer.toString())) {
+                createToken(BaselineToken.TokenType.BOOLEAN_LITERAL);
+            } else if (BaselineCharacterDeterminator.isKeyword(buffer.toString())) {
+                createToken(BaselineToken.TokenType.KEYWORD);
+            } else {
+                createToken(BaselineToken.TokenType.IDENTIFIER);
+            }
+
+            buffer.append(c);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        } else {
+            state = BaselineState.INVALID_STATE;
+        }
+    }
+
+    /**
+     * BaselineState: ZERO_FIRST
+     * Buffer: 0
+     */
+    private void zeroFirstState(Character c) {
+        if(BaselineCharacterDeterminator.isOctal(c)) {
+            state = BaselineState.OCTAL_DIGITS;
+        } else if (c=='b' || c=='B') {
+            state = BaselineState.BINARY_DIGITS;
+        } else if (c=='x' || c=='X') {
+            state = BaselineState.HEX_DIGITS;
+        } else if (c=='.') {
+            state = BaselineState.POINT_IN_DIGIT;
+        } else if (c=='l' || c=='L') {
+            state = BaselineState.INTEGER_SUFIX;
+        } else if (Character.isJavaIdentifierPart(c) || c=='8' || c=='9') {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.INT_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+
+    /**
+     * BaselineState: NON_ZERO_DIGIT
+     * Buffer: 1..9
+     */
+    private void nonZeroDigitState(Character c) {
+        if (Character.isDigit(c)) {
+            //nothing changes
+        } else if (c=='.') {
+            state = BaselineState.POINT_IN_DIGIT;
+        } else if (c=='l' || c=='L') {
+            state = BaselineState.INTEGER_SUFIX;
+        } else if (c=='f' || c=='F') {
+            state = BaselineState.FLOAT_SUFIX;
+        } else if (Character.isJavaIdentifierPart(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.INT_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+
+    /**
+     * BaselineState: CHAR_LITERAL
+     * Buffer: '
+     */
+    private void charLiteralState(Character c) {
+        if(c=='\\') {
+            state = BaselineState.POSSIBLE_ESCAPE_SEQUENCE_CHAR;
+        } else if (Character.isWhitespace(c) && c!=' ' && c!='\t') {
+            createPreviousDataToken(BaselineToken.TokenType.ERROR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        } else {
+            state = BaselineState.EXPECT_END_OF_CHAR;
+        }
+    }
+
+    /**
+     * BaselineState: STRING_LITERAL
+     * Buffer: "
+     */
+    private void stringLiteralState(Character c) {
+        if(c=='\\') {
+            state = BaselineState.POSSIBLE_ESCAPE_SEQUENCE;
+        } else if (c=='\"') {
+            createToken(BaselineToken.TokenType.STRING_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+        } else if (Character.isWhitespace(c) && c!=' ' && c!='\t') {
+            createPreviousDataToken(BaselineToken.TokenType.ERROR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        } else {
+            //nothing changes
+        }
+    }
+
+    /**
+     * BaselineState: DOT
+     * Buffer: .
+     */
+    private void dotState(Character c) {
+        if(Character.isDigit(c)) {
+            state = BaselineState.POINT_IN_DIGIT;
+        } else if (c=='.') {
+            state = BaselineState.DOUBLE_DOT;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.SEPARATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: DOUBLE_DOT
+     * Buffer: ..
+     */
+    private void doubleDotState(Character c) {
+        if(c=='.') {
+            createToken(BaselineToken.TokenType.SEPARATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else {
+            buffer = new StringBuilder();
+            buffer.append(".");
+            createToken(BaselineToken.TokenType.SEPARATOR);
+            buffer.append(".");
+            createToken(BaselineToken.TokenType.SEPARATOR);
+
+            state = BaselineState.INITIAL_STATE;
+        }
+    }
+
+    /**
+     * BaselineState: GREATER
+     * Buffer: >
+     */
+    private void greaterState(Character c) {
+        if(c=='=') {
+            createToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (c=='>') {
+            state = BaselineState.DOUBLE_GREATER;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: DOUBLE_GREATER
+     * Buffer: >>
+     */
+    private void doubleGreaterState(Character c) {
+        if(c=='>') {
+            createToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: LESS
+     * Buffer: <
+     */
+    private void lessState(Character c) {
+        if(c=='=') {
+            createToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (c=='>') {
+            createToken( BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (c=='<') {
+            createToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: AMPERSAND
+     * Buffer: &
+     */
+    private void ampersandState(Character c) {
+        if (c == '&') {
+            createToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (c=='=') {
+            state = BaselineState.OPERATOR_AND_EQUAL;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: SINGLE_OPERATOR
+     * Buffer: <Operator>
+     */
+    private void singleOperatorState(Character c) {
+        if(c=='=') {
+            state = BaselineState.OPERATOR_AND_EQUAL;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: COLON
+     * Buffer: :
+     */
+    private void colonState(Character c) {
+        if(c==':') {
+            createToken(BaselineToken.TokenType.SEPARATOR);
+            state = BaselineState.INITIAL_STATE;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: PLUS
+     * Buffer: +
+     */
+    private void plusState(Character c) {
+        if(c=='+') {
+            state = BaselineState.SINGLE_OPERATOR;
+        } else if (c=='=') {
+            state = BaselineState.OPERATOR_AND_EQUAL;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INITIAL_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: PLUS
+     * Buffer: +
+     */
+    private void minusState(Character c) {
+        if(c=='-') {
+            state = BaselineState.SINGLE_OPERATOR;
+        } else if (c=='=') {
+            state = BaselineState.OPERATOR_AND_EQUAL;
+        } else if (BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INITIAL_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: SINGLE_LINE_COMMENT
+     * Buffer: //...
+     */
+    private void singleLineCommentState(Character c) {
+        if(Character.isWhitespace(c) && c!= '\t' && c!=' ') {
+            createPreviousDataToken(BaselineToken.TokenType.COMMENT);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        } else {
+            //nothing changes
+        }
+    }
+
+    /**
+     * BaselineState: MULTI_LINE_COMMENT
+     * Buffer: /*...
+     */
+    private void multilineCommentState(Character c) {
+        if(c=='*') {
+            state = BaselineState.STAR_IN_MULTI_LINE_COMMENT;
+        } else {
+            //nothing changes
+        }
+    }
+
+    /**
+     * BaselineState: STAR_IN_MULTI_LINE_COMMENT
+     * Buffer: /*...*
+     */
+    private void starInMultilineCommentState(Character c) {
+        if(c=='/') {
+            createToken(BaselineToken.TokenType.COMMENT);
+        } else {
+            state = BaselineState.MULTI_LINE_COMMENT;
+        }
+    }
+
+    /**
+     * BaselineState: OPERATOR_AND_EQUAL
+     * Buffer: <operator>=
+     */
+    private void operatorAndEqualState(Character c) {
+         if(BaselineCharacterDeterminator.isOperator(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+
+    /**
+     * BaselineState: OPERATOR_AND_EQUAL
+     * Buffer: |
+     */
+    private void pipeState(Character c) {
+        if (c=='|') {
+           createToken(BaselineToken.TokenType.OPERATOR);
+           state = BaselineState.INITIAL_STATE;
+        } else if (c=='=') {
+            state = BaselineState.OPERATOR_AND_EQUAL;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.OPERATOR);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: POINT_IN_DIGIT
+     * Buffer: number.number
+     */
+    private void pointInDigitState(Character c) {
+        if (Character.isDigit(c)) {
+            //nothing
+        } else if(BaselineCharacterDeterminator.isDoubleOrFloat(c)) {
+            state = BaselineState.FLOAT_SUFIX;
+        } else if (Character.isJavaIdentifierPart(c) || c=='.') {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.FLOAT_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: POSSIBLE_ESCAPE_SEQUENCE
+     * Buffer: <string>\
+     */
+    private void possibleEscapeSequenceState(Character c) {
+        if(BaselineCharacterDeterminator.isSpecial("\\" + c)) {
+            state = BaselineState.STRING_LITERAL;
+        } else {
+            state = BaselineState.INVALID_STATE;
+        }
+    }
+
+    /**
+     * BaselineState: POSSIBLE_ESCAPE_SEQUENCE_CHAR
+     * Buffer: <char>\
+     */
+    private void possibleEscapeSequenceCharState(Character c) {
+        if (BaselineCharacterDeterminator.isSpecial("\\" + c)) {
+            state = BaselineState.EXPECT_END_OF_CHAR;
+        } else {
+            state = BaselineState.INVALID_STATE;
+        }
+    }
+
+    /**
+     * BaselineState: EXPECT_END_OF_CHAR
+     * Buffer: '<char>
+     */
+    private void expectEndOfCharState(Character c) {
+        if(c=='\'') {
+            createToken(BaselineToken.TokenType.CHAR_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+        } else {
+            state = BaselineState.INVALID_STATE;
+        }
+    }
+
+    /**
+     * BaselineState: BINARY_DIGIT
+     * Buffer: 0..1+
+     */
+    private void binaryDigitState(Character c) {
+        if(BaselineCharacterDeterminator.isBinary(c)) {
+            //nothing
+        } else if (c=='_') {
+            //nothing
+        } else if (c=='l' || c=='L') {
+            state = BaselineState.INTEGER_SUFIX;
+        } else if (c=='f' || c=='F') {
+            state = BaselineState.FLOAT_SUFIX;
+        } else if (Character.isJavaIdentifierPart(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.INT_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: HEX_DIGIT
+     * Buffer: 0..F+
+     */
+    private void hexDigitState(Character c) {
+        if(BaselineCharacterDeterminator.isHex(c)) {
+            //nothing
+        } else if(c=='_') {
+            //nothing
+        } else if(c=='l' || c=='L') {
+            state = BaselineState.INTEGER_SUFIX;
+        } else if (c=='f' || c=='F') {
+            state = BaselineState.FLOAT_SUFIX;
+        } else if (Character.isJavaIdentifierPart(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.INT_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: OCTAL_DIGIT
+     * Buffer: 0..7+
+     */
+    private void octalDigitState(Character c) {
+        if(BaselineCharacterDeterminator.isOctal(c)) {
+            //nothing
+        } else if (c=='_') {
+            //nothing
+        } else if(c=='l' || c=='L') {
+            state = BaselineState.INTEGER_SUFIX;
+        } else if (c=='f' || c=='F') {
+            state = BaselineState.FLOAT_SUFIX;
+        } else if (Character.isJavaIdentifierPart(c) || c=='8' || c=='9') {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.INT_LITERAL);
+            state = BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    /**
+     * BaselineState: INTEGER_SUFIX
+     * Buffer: <number>L
+     */
+    private void integerSufixState(Character c) {
+        if(Character.isJavaIdentifierPart(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.INT_LITERAL);
+            state=BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+    private void floatSufixState(Character c) {
+        if(Character.isJavaIdentifierPart(c)) {
+            state = BaselineState.INVALID_STATE;
+        } else {
+            createPreviousDataToken(BaselineToken.TokenType.FLOAT_LITERAL);
+            state=BaselineState.INITIAL_STATE;
+            initialState(c);
+        }
+    }
+
+
+    private void createToken(BaselineToken.TokenType tokenType) {
+        tokens.add(new BaselineToken(tokenType, buffer.toString()));
+        buffer = new StringBuilder();
+    }
+
+    private void createPreviousDataToken(BaselineToken.TokenType tokenType) {
+        String previousData = buffer.substring(0, buffer.length() - 1);
+        Character lastSymbol = buffer.charAt(buffer.length()-1);
+
+        tokens.add(new BaselineToken(tokenType, previousData));
+        buffer = new StringBuilder();
+
+        buffer.append(lastSymbol);
+    }
+}
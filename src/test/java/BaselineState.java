@@ -0,0 +1,34 @@
+public enum BaselineState {
+    INVALID_STATE,
+    INITIAL_STATE,
+    SLASH,
+    JAVA_IDENTIFIER,
+    ZERO_FIRST,
+    NON_ZERO_DIGIT,
+    CHAR_LITERAL,
+    STRING_LITERAL,
+    DOT,
+    GREATER,
+    LESS,
+    AMPERSAND,
+    SINGLE_OPERATOR,
+    COLON,
+    PLUS,
+    MINUS,
+    PIPE,
+    SINGLE_LINE_COMMENT,
+    MULTI_LINE_COMMENT,
+    OCTAL_DIGITS,
+    BINARY_DIGITS,
+    HEX_DIGITS,
+    INTEGER_SUFIX,
+    POINT_IN_DIGIT,
+    POSSIBLE_ESCAPE_SEQUENCE_CHAR,
+    EXPECT_END_OF_CHAR,
+    POSSIBLE_ESCAPE_SEQUENCE,
+    DOUBLE_GREATER,
+    OPERATOR_AND_EQUAL,
+    STAR_IN_MULTI_LINE_COMMENT,
+    FLOAT_SUFIX,
+    DOUBLE_DOT,
+}
@@ -0,0 +1,16 @@
+import lombok.Getter;
+
+@Getter
+public class BaselineToken {
+    public enum TokenType {
+        COMMENT, WHITESPACE, IDENTIFIER, OPERATOR, SEPARATOR, INT_LITERAL, FLOAT_LITERAL, CHAR_LITERAL, STRING_LITERAL, BOOLEAN_LITERAL, NULL_LITERAL, KEYWORD, ERROR
+    }
+
+    private TokenType type;
+    private String data;
+
+    public BaselineToken(TokenType type, String data) {
+        this.type = type;
+        this.data = data;
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class BatchLexerTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void collectDirectoriesGlobsAndFiles() throws IOException {
+        Path root = folder.getRoot().toPath();
+        Path b = write("a/B.java", "");
+        Path c = write("a/b/C.java", "");
+        write("a/b/D.txt", "");
+        Path e = write("E.java", "");
+
+        //a directory is walked for java files, paths are sorted by name, upper case first
+        assertEquals(Arrays.asList(e, b, c), BatchLexer.collect(Collections.singletonList(root.toString())));
+        //a glob is walked from its directory part
+        assertEquals(Arrays.asList(b, c), BatchLexer.collect(Collections.singletonList(root + "/a/**.java")));
+        assertEquals(Collections.singletonList(e), BatchLexer.collect(Collections.singletonList(root + "/*.java")));
+        assertEquals(Collections.singletonList(c), BatchLexer.collect(Collections.singletonList(root + "/a/*/{C,X}.java")));
+        //a file is taken as is, whatever its name, and every file is collected once
+        Path text = root.resolve("a/b/D.txt");
+        assertEquals(Arrays.asList(b, c, text), BatchLexer.collect(Arrays.asList(text.toString(), root + "/a/**.java", b.toString())));
+    }
+
+    /**
+     * More files than one task lexes, results are in the order of the paths whichever worker lexed them
+     */
+    @Test
+    public void resultsInPathOrder() throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder source = new StringBuilder();
+            for (int k = 0; k <= i; k++) {
+                source.append("int v").append(k % 10).append(" = ").append(k).append(";\n");
+            }
+            files.add(write(String.format("F%03d.java", i), source.toString()));
+            sources.add(source.toString());
+        }
+        Path missing = folder.getRoot().toPath().resolve("F050x.java");
+        files.add(51, missing);
+
+        SymbolTable symbols = new SymbolTable();
+        BatchLexer.Result result = new BatchLexer(POOL, TableLexer::new, StandardCharsets.UTF_8, null, symbols).lex(files);
+        assertEquals(files.size(), result.getFiles().size());
+        assertEquals(1, result.getFailed());
+        long tokens = 0;
+        for (int i = 0, source = 0; i < files.size(); i++) {
+            BatchLexer.FileResult file = result.getFiles().get(i);
+            assertEquals(files.get(i), file.getPath());
+            if (files.get(i) == missing) {
+                assertNotNull(file.getError());
+                assertEquals(0, file.getTokens());
+                continue;
+            }
+            assertNull(file.getError());
+            TokenTable expected = new TableLexer().tokenize(sources.get(source));
+            assertEquals(expected.size(), file.getTokens());
+            assertEquals(sources.get(source).length(), file.getChars());
+            tokens += expected.size();
+            source++;
+        }
+        assertEquals(tokens, result.getTokens());
+        //v0 to v9, interned by all workers into one table
+        assertEquals(10, symbols.size());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,151 @@
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * All engines give the same tokens as {@link Lexer}. Inputs are long enough for two or three chunks. Inputs without
+ * line ends make {@link ParallelLexer} split them inside tokens and junk, inputs with line ends and comments make it
+ * split them after the line ends, inside line comments, strings, junk and block comments.
+ */
+public class EngineEquivalenceTest {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final String[] PIECES = {
+            "#", "@", "@@", ".", "..", "...", "x", "ab", "int", "null", "true", "0", "0x1F", "1.5e3", "08", "1__",
+            " ", "  ", "\t", "\"s\"", "'c'", "'", "+", "+=", ">>>=", "::", "(", ")", ";", "*", "/=", "\\",
+            "\u0001", "\u0007\u0007", "\u00e9"
+    };
+    //a block comment swallows the rest of the input, the lexer does not leave it at '*/'
+    private static final String[] LINE_PIECES = {
+            "\n", "\n", "\n\n  ", "\r\n", "// c\n", "//\u0001\n", "x", "ab", "0x1F", " ", "\t", "\"s\"", "\"a..b\"",
+            "\"a\nb\"", "'\n'", "..", ";", "*", "/", "*/", "#", "\u0001", "\u0007\u0007\n", "\u00e9", "\u0001\n\t"
+    };
+    //the chunk border falls at every offset of these, e.g. inside the junk which is prepended to a split '..'
+    private static final String[] BORDER_PATTERNS = {
+            "\u0001\u0001..x", "\u0007..;", "\u0001\u0002...", "\u0001\u0001ab", "\u0001\u0001.5", "\u0001\u0001'c'",
+            "@@..x", "#..;", "ab..c", "0x..1", "'a'..", "null..", "1.5..e", "\u00e9\u00e9..x"
+    };
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void randomInputs() {
+        Random random = new Random(8);
+        for (int i = 0; i < 30; i++) {
+            int length = 2 * CHUNK_SIZE + random.nextInt(2 * CHUNK_SIZE);
+            assertSameTokens(generate(random, length));
+        }
+    }
+
+    @Test
+    public void bordersInsidePatterns() {
+        Random random = new Random(13);
+        for (String pattern : BORDER_PATTERNS) {
+            for (int shift = 0; shift <= pattern.length(); shift++) {
+                //two chunks, the border is in the middle
+                StringBuilder input = new StringBuilder(generate(random, 2 * CHUNK_SIZE + 2 * random.nextInt(64)));
+                int border = input.length() / 2;
+                input.replace(border - shift, border - shift + pattern.length(), pattern);
+                assertSameTokens(input.toString());
+            }
+        }
+    }
+
+    @Test
+    public void linesWithComments() {
+        Random random = new Random(21);
+        for (int i = 0; i < 20; i++) {
+            int length = 2 * CHUNK_SIZE + random.nextInt(2 * CHUNK_SIZE);
+            assertSameTokens(generate(random, LINE_PIECES, length));
+        }
+    }
+
+    /**
+     * The block comment starts in the first chunk, so the tokens of every later chunk come from a run which
+     * started inside the comment, with the real start of the comment before its border
+     */
+    @Test
+    public void blockCommentAcrossChunks() {
+        Random random = new Random(34);
+        for (String opening : new String[] {"/*", "\u0001\u0001/*", "x /* */", "// c\n/*"}) {
+            for (int i = 0; i < 4; i++) {
+                StringBuilder input = new StringBuilder(generate(random, LINE_PIECES, 3 * CHUNK_SIZE));
+                int at = random.nextInt(CHUNK_SIZE / 2);
+                input.insert(at, "\n" + opening);
+                if (i % 2 == 0) {
+                    //no '*/' ends a token after the opening, the whole rest of the input is pending
+                    for (int end = input.indexOf("*/", at + 3); end >= 0; end = input.indexOf("*/", end)) {
+                        input.setCharAt(end, ' ');
+                    }
+                }
+                assertSameTokens(input.toString());
+            }
+        }
+    }
+
+    private static String generate(Random random, int length) {
+        return generate(random, PIECES, length);
+    }
+
+    private static String generate(Random random, String[] pieces, int length) {
+        StringBuilder sb = new StringBuilder(length + 8);
+        while (sb.length() < length) {
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    private static void assertSameTokens(String input) {
+        TokenTable expected = new Lexer().tokenize(input);
+        assertSameTokens("table", expected, new TableLexer().tokenize(input));
+        assertSameTokens("parallel", expected, new ParallelLexer(POOL).tokenize(input));
+        assertSameTokens("parallel char sequence", expected, new ParallelLexer(POOL).tokenize(CharBuffer.wrap(input)));
+        assertSameTokens("utf-8", expected, toChars(input, new TableLexer().tokenize(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    /**
+     * Tokens of the UTF-8 path with byte offsets turned into char offsets, the input has no supplementary chars
+     */
+    private static TokenTable toChars(String input, TokenTable utf8) {
+        //one more for the whitespace the lexer appends
+        int[] chars = new int[input.getBytes(StandardCharsets.UTF_8).length + 2];
+        for (int i = 0, offset = 0; i <= input.length(); i++) {
+            chars[offset] = i;
+            offset += i < input.length() ? String.valueOf(input.charAt(i)).getBytes(StandardCharsets.UTF_8).length : 1;
+        }
+        chars[chars.length - 1] = input.length() + 1;
+        TokenTable tokens = new TokenTable(input);
+        for (int i = 0; i < utf8.size(); i++) {
+            int start = chars[utf8.getStart(i)];
+            tokens.token(utf8.getType(i), start, chars[utf8.getStart(i) + utf8.getLength(i)] - start);
+        }
+        return tokens;
+    }
+
+    private static void assertSameTokens(String engine, TokenTable expected, TokenTable actual) {
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            if (expected.getType(i) != actual.getType(i) || expected.getStart(i) != actual.getStart(i)
+                    || expected.getLength(i) != actual.getLength(i)) {
+                fail(engine + ": token " + i + " is " + describe(actual, i) + ", expected " + describe(expected, i));
+            }
+        }
+        assertEquals(engine + ": token count", expected.size(), actual.size());
+    }
+
+    private static String describe(TokenTable tokens, int index) {
+        return tokens.getType(index) + " '" + tokens.getData(index) + "' at " + tokens.getStart(index);
+    }
+}
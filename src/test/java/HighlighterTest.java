@@ -0,0 +1,65 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HighlighterTest {
+    @Test
+    public void ansiColors() throws IOException {
+        assertEquals("\u001B[1;34mint\u001B[0m x \u001B[33m=\u001B[0m \u001B[36m0x1F\u001B[0m; \u001B[90m// c\u001B[0m\n",
+                highlight("int x = 0x1F; // c\n", Highlighter.Format.ANSI));
+        assertEquals("\u001B[32m\"s\"\u001B[0m\u001B[35mtrue\u001B[0m", highlight("\"s\"true", Highlighter.Format.ANSI));
+    }
+
+    @Test
+    public void htmlSpansAndEscapes() throws IOException {
+        String html = highlight("a < b && s == \"&\"", Highlighter.Format.HTML);
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.endsWith("</pre>\n</body>\n</html>\n"));
+        String body = html.substring(html.indexOf("<pre>") + 5, html.indexOf("</pre>"));
+        assertEquals("a <span class=\"operator\">&lt;</span> b <span class=\"operator\">&amp;&amp;</span> s "
+                + "<span class=\"operator\">==</span> <span class=\"string_literal\">&quot;&amp;&quot;</span>", body);
+    }
+
+    /**
+     * Chars in no token and the rest after the last token are written as they are
+     */
+    @Test
+    public void charsOutsideTokensAreKept() throws IOException {
+        for (String source : new String[] {"a..b", "x...", "\u0001\u0001..;", "/* open", "int", ""}) {
+            assertEquals(source, strip(highlight(source, Highlighter.Format.ANSI)));
+        }
+    }
+
+    /**
+     * Output far larger than the buffer, the text between the markup is the source
+     */
+    @Test
+    public void largeSource() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 300000) {
+            sb.append("public int size(String name) { return name.length() + 0x1F; } // \"text\" <&>\n");
+        }
+        String source = sb.toString();
+        assertEquals(source, strip(highlight(source, Highlighter.Format.ANSI)));
+        String html = highlight(source, Highlighter.Format.HTML);
+        String body = html.substring(html.indexOf("<pre>") + 5, html.lastIndexOf("</pre>"));
+        assertEquals(source, body.replaceAll("<[^>]*>", "").replace("&lt;", "<").replace("&gt;", ">")
+                .replace("&quot;", "\"").replace("&amp;", "&"));
+    }
+
+    private static String highlight(String source, Highlighter.Format format) throws IOException {
+        StringWriter out = new StringWriter();
+        Highlighter highlighter = new Highlighter(out, source, format);
+        new TableLexer().tokenize(source, highlighter);
+        highlighter.finish();
+        return out.toString();
+    }
+
+    private static String strip(String ansi) {
+        return ansi.replaceAll("\u001B\\[[0-9;]*m", "");
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Every edit gives the same tokens as lexing the edited text from scratch
+ */
+public class IncrementalLexerTest {
+    private static final String[] PIECES = {
+            "x", "ab", "int", "null", "0x1F", "1.5", " ", "\n", "\t", ";", "(", ")", "..", ".", "...", "\"s\"",
+            "\"a..b\"", "\"", "'c'", "'", "//", "// c\n", "/*", "*/", "*", "/", "\u0001", "#", "\u00e9"
+    };
+    //edits which merge, split or open tokens at their borders
+    private static final String[] INSERTS = {
+            "", "x", "ab", " ", "\n", ".", "..", "\"", "'", "/", "*", "/*", "*/", "//", "\u0001", "0", "int", "\"s\" y"
+    };
+
+    @Test
+    public void randomEdits() {
+        Random random = new Random(7);
+        for (int document = 0; document < 200; document++) {
+            String text = generate(random, random.nextInt(3000));
+            IncrementalLexer lexer = new IncrementalLexer(text);
+            assertSameTokens(text, lexer);
+            for (int edit = 0; edit < 40; edit++) {
+                int offset = random.nextInt(text.length() + 1);
+                int removed = random.nextInt(Math.min(8, text.length() - offset) + 1);
+                String inserted = random.nextInt(4) == 0 ? generate(random, random.nextInt(40)) : INSERTS[random.nextInt(INSERTS.length)];
+                text = text.substring(0, offset) + inserted + text.substring(offset + removed);
+                lexer.edit(offset, removed, inserted);
+                assertEquals(text, lexer.getText().toString());
+                assertSameTokens(text, lexer);
+            }
+        }
+    }
+
+    /**
+     * Symbol ids of an edited table are the ones of its current identifiers
+     */
+    @Test
+    public void internAfterEdits() {
+        Random random = new Random(11);
+        IncrementalLexer lexer = new IncrementalLexer(generate(random, 5000));
+        SymbolTable symbols = new SymbolTable();
+        for (int edit = 0; edit < 100; edit++) {
+            int offset = random.nextInt(lexer.getText().length());
+            lexer.edit(offset, 0, INSERTS[random.nextInt(INSERTS.length)]);
+            TokenTable tokens = lexer.getTable();
+            tokens.intern(symbols);
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.getType(i) == Token.TokenType.IDENTIFIER) {
+                    assertEquals(tokens.getData(i), symbols.name(tokens.getSymbol(i)));
+                } else {
+                    assertEquals(SymbolTable.NO_SYMBOL, tokens.getSymbol(i));
+                }
+            }
+        }
+    }
+
+    private static String generate(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 8);
+        while (sb.length() < length) {
+            sb.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameTokens(String text, IncrementalLexer lexer) {
+        TokenTable expected = new TableLexer().tokenize(text);
+        TokenTable actual = lexer.getTable();
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            if (expected.getType(i) != actual.getType(i) || expected.getStart(i) != actual.getStart(i)
+                    || expected.getLength(i) != actual.getLength(i)) {
+                assertEquals("Token " + i, expected.getType(i) + " at " + expected.getStart(i) + "+" + expected.getLength(i),
+                        actual.getType(i) + " at " + actual.getStart(i) + "+" + actual.getLength(i));
+            }
+        }
+        assertEquals("Token count", expected.size(), actual.size());
+    }
+}
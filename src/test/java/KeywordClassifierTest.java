@@ -0,0 +1,31 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * All overloads classify the range [start, end) of a word in the middle of other text
+ */
+public class KeywordClassifierTest {
+    @Test
+    public void overloadsAgree() {
+        String[][] words = {
+                {"int", "KEYWORD"}, {"synchronized", "KEYWORD"}, {"do", "KEYWORD"}, {"true", "BOOLEAN_LITERAL"},
+                {"false", "BOOLEAN_LITERAL"}, {"null", "NULL_LITERAL"}, {"x", "IDENTIFIER"}, {"in", "IDENTIFIER"},
+                {"ints", "IDENTIFIER"}, {"Int", "IDENTIFIER"}, {"synchronizedx", "IDENTIFIER"}, {"nul\u00e9", "IDENTIFIER"}
+        };
+        for (String[] word : words) {
+            String text = "ab " + word[0] + " cd";
+            int start = 3;
+            int end = start + word[0].length();
+            Token.TokenType expected = Token.TokenType.valueOf(word[1]);
+            assertEquals(word[0], expected, KeywordClassifier.classify(text.toCharArray(), start, end));
+            assertEquals(word[0], expected, KeywordClassifier.classify(text, start, end));
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            int byteEnd = start + word[0].getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(word[0], expected, KeywordClassifier.classify(bytes, start, byteEnd));
+        }
+    }
+}
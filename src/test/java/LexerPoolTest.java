@@ -0,0 +1,121 @@
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class LexerPoolTest {
+    private static final String SOURCE = "class A { int x = 0x1F; String s = \"s\"; } // end";
+
+    @Test
+    public void reusesUpToCapacity() {
+        AtomicInteger created = new AtomicInteger();
+        LexerPool pool = new LexerPool(() -> {
+            created.incrementAndGet();
+            return new TableLexer();
+        }, 2);
+        Tokenizer first = pool.acquire();
+        Tokenizer second = pool.acquire();
+        Tokenizer third = pool.acquire();
+        assertEquals(3, created.get());
+        pool.release(first);
+        pool.release(second);
+        //no room for a third idle engine, it is dropped
+        pool.release(third);
+        assertEquals(2, pool.idle());
+
+        assertSame(first, pool.acquire());
+        assertSame(second, pool.acquire());
+        assertEquals(0, pool.idle());
+        assertEquals(3, created.get());
+
+        for (int i = 0; i < 4; i++) {
+            assertSameTokens(new Lexer().tokenize(SOURCE), pool.tokenize(SOURCE));
+        }
+        assertEquals(4, created.get());
+        assertEquals(1, pool.idle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        new LexerPool(TableLexer::new, 0);
+    }
+
+    @Test
+    public void localEnginePerThread() throws InterruptedException {
+        LexerPool pool = new LexerPool(TableLexer::new, 1);
+        Tokenizer local = pool.local();
+        assertSame(local, pool.local());
+        assertNotSame(local, pool.acquire());
+        Tokenizer[] other = new Tokenizer[1];
+        Thread thread = new Thread(() -> other[0] = pool.local());
+        thread.start();
+        thread.join();
+        assertNotSame(local, other[0]);
+    }
+
+    /**
+     * A sink which fails leaves the engine inside a token, the pool resets it before the next input
+     */
+    @Test
+    public void releasedAfterFailure() {
+        for (Supplier<Tokenizer> factory : List.<Supplier<Tokenizer>>of(Lexer::new, TableLexer::new,
+                () -> new HardenedLexer(new TableLexer(), 8))) {
+            LexerPool pool = new LexerPool(factory, 1);
+            try {
+                pool.tokenize("int /* open comment", (type, start, length) -> {
+                    throw new IllegalStateException("Sink failed");
+                });
+                fail("The sink did not fail");
+            } catch (IllegalStateException e) {
+                assertEquals("Sink failed", e.getMessage());
+            }
+            assertEquals(1, pool.idle());
+            assertSameTokens(factory.get().tokenize(SOURCE), pool.tokenize(SOURCE));
+        }
+    }
+
+    /**
+     * A reset engine kept idle by the pool does not keep the last input and sink reachable
+     */
+    @Test
+    public void resetDropsInputAndSink() throws InterruptedException {
+        for (Supplier<Tokenizer> factory : List.<Supplier<Tokenizer>>of(Lexer::new, TableLexer::new,
+                () -> new HardenedLexer(new TableLexer(), 8))) {
+            LexerPool pool = new LexerPool(factory, 1);
+            StringBuilder source = new StringBuilder(SOURCE);
+            TokenTable table = new TokenTable(source);
+            List<WeakReference<Object>> references = new ArrayList<WeakReference<Object>>();
+            references.add(new WeakReference<Object>(source));
+            references.add(new WeakReference<Object>(table));
+            pool.tokenize(source, table);
+            source = null;
+            table = null;
+            for (WeakReference<Object> reference : references) {
+                for (int i = 0; i < 50 && reference.get() != null; i++) {
+                    System.gc();
+                    Thread.sleep(10);
+                }
+                assertNull(reference.get());
+            }
+            assertEquals(1, pool.idle());
+        }
+    }
+
+    private static void assertSameTokens(TokenTable expected, TokenTable actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getType(i), actual.getType(i));
+            assertEquals(expected.getStart(i), actual.getStart(i));
+            assertEquals(expected.getLength(i), actual.getLength(i));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LexerServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LexerServer server;
+    private Thread serving;
+
+    @Before
+    public void start() throws IOException {
+        server = new LexerServer(0, TableLexer::new, StandardCharsets.UTF_8, folder.getRoot().toPath());
+        serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serving.setDaemon(true);
+        serving.start();
+    }
+
+    @After
+    public void stop() throws Exception {
+        server.close();
+        serving.join(10000);
+    }
+
+    /**
+     * Requests and responses of the batch are far larger than the socket buffers
+     */
+    @Test(timeout = 60000)
+    public void largeBatchWithText() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1 << 20) {
+            sb.append("public int size(String name) { return name.length() + 0x1F; } // \"text\" \n");
+        }
+        String source = sb.toString();
+        try (LexerClient client = new LexerClient(server.getPort(), true)) {
+            for (int i = 0; i < 8; i++) {
+                client.source(source);
+            }
+            List<TokenStreamReader> responses = client.send();
+            assertEquals(8, responses.size());
+            for (TokenStreamReader response : responses) {
+                assertSameTokens(new TableLexer().tokenize(source), response, true);
+            }
+
+            //the connection stays usable for the next batch
+            List<TokenStreamReader> next = client.source("int x;").send();
+            assertSameTokens(new TableLexer().tokenize("int x;"), next.get(0), true);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void fileBelowRoot() throws IOException {
+        File file = folder.newFile("A.java");
+        Files.write(file.toPath(), "class A { }".getBytes(StandardCharsets.UTF_8));
+        try (LexerClient client = new LexerClient(server.getPort(), false)) {
+            List<TokenStreamReader> responses = client.file("A.java").send();
+            assertSameTokens(new TableLexer().tokenize("class A { }"), responses.get(0), false);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void fileOutsideRootIsRejected() throws IOException {
+        File outside = File.createTempFile("outside", ".java");
+        try (LexerClient client = new LexerClient(server.getPort(), false)) {
+            client.file(outside.getAbsolutePath()).send();
+            fail("A file outside the root was lexed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Not a file below the root directory"));
+        } finally {
+            outside.delete();
+        }
+    }
+
+    private static void assertSameTokens(TokenTable expected, TokenStreamReader actual, boolean text) throws IOException {
+        assertEquals(text, actual.hasText());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue("Stream ends at token " + i, actual.next());
+            assertEquals(expected.getType(i), actual.getType());
+            assertEquals(expected.getStart(i), actual.getStart());
+            assertEquals(expected.getLength(i), actual.getLength());
+            if (text) {
+                assertEquals(expected.getData(i), actual.getText());
+            }
+        }
+        assertFalse(actual.next());
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineIndexTest {
+    private static final String[] PIECES = {
+            "\n", "\r", "\r\n", "\n\r", "x", "int", " ", "\t", "\"s\"", "\"a\nb\"", "'\r'", "//c", "/*", "*/", "*", "/",
+            "..", ";", "#", "\u0001", "\u00e9", "\u2028"
+    };
+
+    @Test
+    public void linesAndColumns() {
+        LineIndex lines = new LineIndex("ab\ncd\r\n\rx");
+        new TableLexer().tokenize("ab\ncd\r\n\rx", (type, start, length) -> {
+        }, lines);
+        assertEquals(4, lines.getLineCount());
+        assertEquals(1, lines.getLine(1));
+        assertEquals(2, lines.getColumn(1));
+        assertEquals(2, lines.getLine(3));
+        assertEquals(1, lines.getColumn(3));
+        assertEquals(2, lines.getLine(6));
+        assertEquals(3, lines.getLine(7));
+        assertEquals(4, lines.getLine(8));
+        assertEquals(8, lines.getLineStart(4));
+        assertEquals(4, lines.getLine(100));
+    }
+
+    /**
+     * The table lexer finds the same line starts as a scan of the source, also inside comments and strings
+     */
+    @Test
+    public void tableLexerAgreesWithScan() {
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(200);
+            while (sb.length() < length) {
+                sb.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            String source = sb.toString();
+
+            LineIndex expected = LineIndex.of(source);
+            TokenTable tokens = new TokenTable(source);
+            LineIndex lexed = new LineIndex(source);
+            new TableLexer().tokenize(source, tokens, lexed);
+            lexed.finish();
+            assertEquals(source, expected.getLineCount(), lexed.getLineCount());
+            for (int line = 1; line <= expected.getLineCount(); line++) {
+                assertEquals(source, expected.getLineStart(line), lexed.getLineStart(line));
+            }
+
+            TokenTable wrapped = new TokenTable(source);
+            LineIndex scanned = new LineIndex(source, wrapped);
+            new TableLexer().tokenize(source, scanned);
+            scanned.finish();
+            assertEquals(source, expected.getLineCount(), scanned.getLineCount());
+            assertEquals(source, tokens.size(), wrapped.size());
+        }
+    }
+}
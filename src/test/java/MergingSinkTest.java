@@ -0,0 +1,61 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MergingSinkTest {
+    @Test
+    public void mergesAdjacentTokensOfTheType() {
+        TokenTable tokens = new TokenTable("");
+        MergingSink sink = new MergingSink(tokens, Token.TokenType.WHITESPACE);
+        sink.token(Token.TokenType.WHITESPACE, 0, 1);
+        sink.token(Token.TokenType.WHITESPACE, 1, 2);
+        sink.token(Token.TokenType.IDENTIFIER, 3, 1);
+        sink.token(Token.TokenType.WHITESPACE, 4, 1);
+        //not adjacent, a new run
+        sink.token(Token.TokenType.WHITESPACE, 6, 1);
+        assertEquals(3, tokens.size());
+        sink.finish();
+        assertTokens(tokens, Token.TokenType.WHITESPACE, 0, 3, Token.TokenType.IDENTIFIER, 3, 1,
+                Token.TokenType.WHITESPACE, 4, 1, Token.TokenType.WHITESPACE, 6, 1);
+    }
+
+    @Test
+    public void overlongTokensAreErrors() {
+        TokenTable tokens = new TokenTable("");
+        ErrorCoalescingSink sink = new ErrorCoalescingSink(tokens, 4);
+        sink.token(Token.TokenType.ERROR, 0, 1);
+        sink.token(Token.TokenType.COMMENT, 1, 10);
+        sink.token(Token.TokenType.IDENTIFIER, 11, 4);
+        sink.token(Token.TokenType.ERROR, 15, 1);
+        sink.finish();
+        assertTokens(tokens, Token.TokenType.ERROR, 0, 11, Token.TokenType.IDENTIFIER, 11, 4, Token.TokenType.ERROR, 15, 1);
+    }
+
+    @Test
+    public void channelFilterMergesEmittedWhitespace() {
+        TokenTable tokens = new TokenTable("");
+        ChannelFilter filter = new ChannelFilter(tokens).set(Token.TokenType.COMMENT, ChannelFilter.Channel.DROP)
+                .mergeWhitespace(true);
+        filter.token(Token.TokenType.WHITESPACE, 0, 1);
+        filter.token(Token.TokenType.WHITESPACE, 1, 1);
+        filter.token(Token.TokenType.COMMENT, 2, 5);
+        filter.token(Token.TokenType.WHITESPACE, 7, 1);
+        filter.token(Token.TokenType.SEPARATOR, 8, 1);
+        filter.finish();
+        assertTokens(tokens, Token.TokenType.WHITESPACE, 0, 2, Token.TokenType.WHITESPACE, 7, 1, Token.TokenType.SEPARATOR, 8, 1);
+        assertEquals(3, filter.getCount(Token.TokenType.WHITESPACE));
+        assertEquals(1, filter.getCount(Token.TokenType.COMMENT));
+    }
+
+    /**
+     * Expected tokens as type, start and length
+     */
+    private static void assertTokens(TokenTable tokens, Object... expected) {
+        assertEquals(expected.length / 3, tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(expected[3 * i], tokens.getType(i));
+            assertEquals(expected[3 * i + 1], tokens.getStart(i));
+            assertEquals(expected[3 * i + 2], tokens.getLength(i));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SymbolTableTest {
+    @Test
+    public void everyInputGivesTheSameId() {
+        SymbolTable symbols = new SymbolTable();
+        String[] names = {"x", "name", "na\u00efve", "\u4e2d\u6587", "a\ud83d\ude00b"};
+        for (String name : names) {
+            String text = "(" + name + ")";
+            int id = symbols.intern(text.toCharArray(), 1, name.length());
+            assertEquals(id, symbols.intern(text, 1, 1 + name.length()));
+            assertEquals(id, symbols.intern(new StringBuilder(name)));
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            assertEquals(id, symbols.intern(ByteBuffer.wrap(utf8), 1, utf8.length - 1));
+            assertEquals(name, symbols.name(id));
+        }
+        assertEquals(names.length, symbols.size());
+        assertNotEquals(symbols.intern("name"), symbols.intern("names"));
+    }
+
+    /**
+     * A malformed byte is the replacement char, like in the token text
+     */
+    @Test
+    public void malformedUtf8() {
+        SymbolTable symbols = new SymbolTable();
+        int id = symbols.intern(ByteBuffer.wrap(new byte[] {'a', (byte) 0xC3, 'b'}), 0, 3);
+        assertEquals("a\ufffdb", symbols.name(id));
+        assertEquals(id, symbols.intern("a\ufffdb"));
+    }
+
+    /**
+     * Ids are dense over more pages than the directory starts with, also when threads intern at the same time
+     */
+    @Test
+    public void manyNamesFromThreads() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        int count = 200000;
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(threads.submit(() -> {
+                    int[] ids = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        ids[i] = symbols.intern("n" + i);
+                    }
+                    return ids;
+                }));
+            }
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                int[] ids = result.get();
+                for (int i = 0; i < count; i++) {
+                    assertEquals(first[i], ids[i]);
+                }
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(count, symbols.size());
+        for (int i = 0; i < count; i += 997) {
+            assertEquals(i, Integer.parseInt(symbols.name(symbols.intern("n" + i)).substring(1)));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void hitGivesTheLexedTokens() throws IOException {
+        Path file = write("A.java", "class A { int x = 0x1F; } // end\n");
+        TokenCache cache = new TokenCache(folder.newFolder("cache").toPath(), 1 << 20);
+        CountingLexer lexer = new CountingLexer();
+        TokenTable lexed = cache.tokenize(file, lexer, StandardCharsets.UTF_8);
+        TokenTable cached = cache.tokenize(file, lexer, StandardCharsets.UTF_8);
+        assertEquals(1, lexer.calls);
+        assertSameTokens(lexed, cached);
+        assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), cached.getSource().toString());
+    }
+
+    @Test
+    public void keyedByCharsetAndConfiguration() throws IOException {
+        byte[] content = "String s = \"\u00e9\";".getBytes(StandardCharsets.UTF_8);
+        String table = TokenCache.configuration(new TableLexer());
+        String key = TokenCache.key(content, StandardCharsets.UTF_8, table);
+        assertEquals(key, TokenCache.key(content.clone(), StandardCharsets.UTF_8, table));
+        assertNotEquals(key, TokenCache.key(content, StandardCharsets.ISO_8859_1, table));
+        assertNotEquals(key, TokenCache.key(content, StandardCharsets.UTF_8, TokenCache.configuration(new Lexer())));
+
+        String hardened = TokenCache.configuration(new HardenedLexer(new TableLexer(), 8));
+        assertEquals("hardened(8,TableLexer)", hardened);
+        assertNotEquals(hardened, TokenCache.configuration(new HardenedLexer(new TableLexer(), 9)));
+
+        //the same bytes in another charset have other char offsets, so they are lexed again
+        Path file = folder.newFile("B.java").toPath();
+        Files.write(file, content);
+        TokenCache cache = new TokenCache(folder.newFolder("cache").toPath(), 1 << 20);
+        CountingLexer lexer = new CountingLexer();
+        TokenTable utf8 = cache.tokenize(file, lexer, StandardCharsets.UTF_8);
+        TokenTable latin1 = cache.tokenize(file, lexer, StandardCharsets.ISO_8859_1);
+        assertEquals(2, lexer.calls);
+        assertEquals(utf8.getStart(utf8.size() - 1) + 1, latin1.getStart(latin1.size() - 1));
+    }
+
+    /**
+     * A damaged entry is a miss, the file is lexed again
+     */
+    @Test
+    public void corruptEntryIsLexedAgain() throws IOException {
+        Path file = write("C.java", "int a = 1;\nint b = 2;\n");
+        Path directory = folder.newFolder("cache").toPath();
+        TokenCache cache = new TokenCache(directory, 1 << 20);
+        CountingLexer lexer = new CountingLexer();
+        TokenTable lexed = cache.tokenize(file, lexer, StandardCharsets.UTF_8);
+        Path entry = entry(directory, file, lexer, StandardCharsets.UTF_8);
+
+        byte[] bytes = Files.readAllBytes(entry);
+        //start of the second token after the end of the source
+        bytes[bytes.length - 8 * lexed.size() + 4 * 1 + 2] = 0x7F;
+        Files.write(entry, bytes);
+        assertSameTokens(lexed, cache.tokenize(file, lexer, StandardCharsets.UTF_8));
+        assertEquals(2, lexer.calls);
+
+        Files.write(entry, new byte[] {1, 2, 3});
+        assertSameTokens(lexed, cache.tokenize(file, lexer, StandardCharsets.UTF_8));
+        assertEquals(3, lexer.calls);
+    }
+
+    /**
+     * Over the limit the least recently used entries go, down to three quarters of it
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        Path[] files = new Path[6];
+        for (int i = 0; i < files.length; i++) {
+            StringBuilder source = new StringBuilder();
+            for (int k = 0; k < 100; k++) {
+                source.append("int a").append(i).append(" = 1;\n");
+            }
+            files[i] = write("F" + i + ".java", source.toString());
+        }
+        Path directory = folder.newFolder("cache").toPath();
+        TableLexer lexer = new TableLexer();
+        new TokenCache(folder.newFolder("sizes").toPath(), Long.MAX_VALUE).tokenize(files[0], lexer, StandardCharsets.UTF_8);
+        long entrySize = Files.size(entry(folder.getRoot().toPath().resolve("sizes"), files[0], lexer, StandardCharsets.UTF_8));
+
+        TokenCache cache = new TokenCache(directory, entrySize * 11 / 2);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            cache.tokenize(files[i], lexer, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(entry(directory, files[i], lexer, StandardCharsets.UTF_8), FileTime.fromMillis(now - 100000 + i * 1000));
+        }
+        //a hit makes the oldest entry the most recently used one
+        cache.tokenize(files[0], lexer, StandardCharsets.UTF_8);
+        cache.tokenize(files[5], lexer, StandardCharsets.UTF_8);
+
+        boolean[] kept = new boolean[files.length];
+        for (int i = 0; i < files.length; i++) {
+            kept[i] = Files.exists(entry(directory, files[i], lexer, StandardCharsets.UTF_8));
+        }
+        assertTrue(kept[0]);
+        assertFalse(kept[1]);
+        assertFalse(kept[2]);
+        assertTrue(kept[3] && kept[4] && kept[5]);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.newFile(name).toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Path entry(Path directory, Path file, Tokenizer lexer, Charset charset) throws IOException {
+        return directory.resolve(TokenCache.key(Files.readAllBytes(file), charset, TokenCache.configuration(lexer)) + ".tokens");
+    }
+
+    private static void assertSameTokens(TokenTable expected, TokenTable actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getType(i), actual.getType(i));
+            assertEquals(expected.getStart(i), actual.getStart(i));
+            assertEquals(expected.getLength(i), actual.getLength(i));
+        }
+    }
+
+    private static class CountingLexer implements Tokenizer {
+        private final TableLexer lexer = new TableLexer();
+        private int calls;
+
+        public void tokenize(CharSequence source, TokenSink sink) {
+            calls++;
+            lexer.tokenize(source, sink);
+        }
+
+        public void tokenize(char[] buf, int off, int len, TokenSink sink) {
+            calls++;
+            lexer.tokenize(buf, off, len, sink);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenIndexTest {
+    private static final String SOURCE = "int x = 1; // one\nint y = x + 0x2; /* two */ String s = \"x\";";
+
+    @Test
+    public void indicesByType() {
+        TokenTable table = new TokenTable(SOURCE);
+        TokenIndex index = new TokenIndex(table);
+        new TableLexer().tokenize(SOURCE, index);
+
+        assertEquals(table.size(), index.size());
+        int total = 0;
+        for (Token.TokenType type : Token.TokenType.values()) {
+            int[] indices = index.get(type).toArray();
+            assertEquals(index.count(type), indices.length);
+            assertArrayEquals(type.name(), expected(table, type), indices);
+            total += indices.length;
+        }
+        assertEquals(table.size(), total);
+
+        assertEquals(2, index.count(Token.TokenType.KEYWORD));
+        assertEquals(2, index.count(Token.TokenType.COMMENT));
+        assertEquals(2, index.count(Token.TokenType.INT_LITERAL));
+        assertEquals("0x2", table.getData(index.get(Token.TokenType.INT_LITERAL).get(1)));
+        assertTrue(index.get(Token.TokenType.ERROR).isEmpty());
+    }
+
+    @Test
+    public void ofFilledTable() {
+        TokenTable table = new TableLexer().tokenize(SOURCE);
+        TokenIndex index = TokenIndex.of(table);
+        assertEquals(table.size(), index.size());
+        for (Token.TokenType type : Token.TokenType.values()) {
+            assertArrayEquals(type.name(), expected(table, type), index.get(type).toArray());
+        }
+    }
+
+    /**
+     * Tokens pass through to the sink behind the index unchanged
+     */
+    @Test
+    public void passesTokensThrough() {
+        List<String> passed = new ArrayList<String>();
+        TokenIndex index = new TokenIndex((type, start, length) -> passed.add(type + " " + start + " " + length));
+        index.token(Token.TokenType.IDENTIFIER, 0, 1);
+        index.token(Token.TokenType.WHITESPACE, 1, 2);
+        index.token(Token.TokenType.IDENTIFIER, 3, 4);
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[] {0, 2}, index.get(Token.TokenType.IDENTIFIER).toArray());
+        assertArrayEquals(new int[] {1}, index.get(Token.TokenType.WHITESPACE).toArray());
+        assertEquals(List.of("IDENTIFIER 0 1", "WHITESPACE 1 2", "IDENTIFIER 3 4"), passed);
+    }
+
+    private static int[] expected(TokenTable table, Token.TokenType type) {
+        IntList indices = new IntList();
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getType(i) == type) {
+                indices.add(i);
+            }
+        }
+        return indices.toArray();
+    }
+}
@@ -0,0 +1,105 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenStreamTest {
+    private static final String[] PIECES = {
+            "x", "ab", "int", " ", "\n", ";", "..", "\"s\"", "'c'", "// c\n", "#", "@", "\u0001", "\u0007\u0007",
+            "0x1F", "1.5e3", "+=", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"
+    };
+
+    @Test
+    public void sameTokensAsTableLexer() throws IOException {
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            String source = generate(random, random.nextInt(3 * Tokenizer.BLOCK_SIZE));
+            assertSameTokens(new TableLexer().tokenize(source), new TokenStream(new ChunkyReader(source, random)), true);
+        }
+    }
+
+    /**
+     * With a maximum token length the stream gives the tokens of the hardened engine, errors merged
+     */
+    @Test
+    public void hardenedLikeHardenedLexer() throws IOException {
+        Random random = new Random(4);
+        for (int i = 0; i < 20; i++) {
+            String source = generate(random, random.nextInt(3 * Tokenizer.BLOCK_SIZE));
+            TokenTable expected = new HardenedLexer(new TableLexer(), 16).tokenize(source);
+            assertSameTokens(expected, new TokenStream(new ChunkyReader(source, random), 16), false);
+        }
+    }
+
+    @Test
+    public void longTokenKeepsOffsets() throws IOException {
+        StringBuilder sb = new StringBuilder("x ");
+        for (int i = 0; i < 3 * Tokenizer.BLOCK_SIZE; i++) {
+            sb.append('a');
+        }
+        sb.append(" y");
+        TokenStream tokens = new TokenStream(new StringReader(sb.toString()), 100);
+        assertTrue(tokens.next());
+        assertTrue(tokens.next());
+        assertTrue(tokens.next());
+        assertEquals(Token.TokenType.ERROR, tokens.getType());
+        assertEquals(2, tokens.getStart());
+        assertEquals(3 * Tokenizer.BLOCK_SIZE, tokens.getLength());
+    }
+
+    private static String generate(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        while (sb.length() < length) {
+            sb.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameTokens(TokenTable expected, TokenStream actual, boolean text) throws IOException {
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue("Stream ends at token " + i, actual.next());
+            assertEquals("Token " + i, expected.getType(i), actual.getType());
+            assertEquals("Token " + i, expected.getStart(i), actual.getStart());
+            assertEquals("Token " + i, expected.getLength(i), actual.getLength());
+            if (text) {
+                assertEquals("Token " + i, expected.getData(i), actual.getData());
+            }
+        }
+        assertFalse(actual.next());
+    }
+
+    /**
+     * Returns fewer chars than asked for, so tokens cross the blocks at random offsets
+     */
+    private static class ChunkyReader extends Reader {
+        private final String source;
+        private final Random random;
+        private int position;
+
+        private ChunkyReader(String source, Random random) {
+            this.source = source;
+            this.random = random;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            if (position == source.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(len, 1 + random.nextInt(700)), source.length() - position);
+            source.getChars(position, position + count, buf, off);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenStreamWriterTest {
+    private static final String[] PIECES = {
+            "x", " ", "\n", "\"s\"", "\u00e9", "\u4e2d", "\ud83d\ude00", "\ud83d", "\ude00", "// c\n", "..", "#",
+            "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"
+    };
+
+    /**
+     * Text is read back as the UTF-8 of the token, longer than a block too
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(9);
+        for (int i = 0; i < 50; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(i % 5 == 0 ? 4 * Tokenizer.BLOCK_SIZE : 500);
+            while (sb.length() < length) {
+                sb.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            if (i % 7 == 0) {
+                //one token longer than a block
+                sb.append("/*");
+            }
+            String source = sb.toString();
+            TokenTable expected = new TableLexer().tokenize(source);
+
+            for (boolean text : new boolean[] {true, false}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                TokenStreamWriter writer = new TokenStreamWriter(out, text ? source : null);
+                new TableLexer().tokenize(source, writer);
+                writer.flush();
+
+                TokenStreamReader reader = new TokenStreamReader(ByteBuffer.wrap(out.toByteArray()));
+                assertEquals(text, reader.hasText());
+                for (int k = 0; k < expected.size(); k++) {
+                    assertTrue(reader.next());
+                    assertEquals(expected.getType(k), reader.getType());
+                    assertEquals(expected.getStart(k), reader.getStart());
+                    assertEquals(expected.getLength(k), reader.getLength());
+                    if (text) {
+                        assertEquals(new String(expected.getData(k).getBytes("UTF-8"), "UTF-8"), reader.getText());
+                    }
+                }
+                assertFalse(reader.next());
+            }
+        }
+    }
+
+    /**
+     * Full blocks are written, flushing is left to the caller
+     */
+    @Test
+    public void flushesOnlyWhenAsked() throws IOException {
+        CountingStream out = new CountingStream();
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 10 * Tokenizer.BLOCK_SIZE) {
+            sb.append("int x = 1;\n");
+        }
+        TokenStreamWriter writer = new TokenStreamWriter(out, sb);
+        new TableLexer().tokenize(sb, writer);
+        assertTrue(out.bytes > 0);
+        assertEquals(0, out.flushes);
+        writer.close();
+        assertEquals(1, out.flushes);
+    }
+
+    private static class CountingStream extends OutputStream {
+        private long bytes;
+        private int flushes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
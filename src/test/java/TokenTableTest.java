@@ -0,0 +1,88 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TokenTableTest {
+    @Test
+    public void tokensByIndexListAndCursor() {
+        String source = "int x=10;";
+        TokenTable tokens = new TableLexer().tokenize(source);
+        assertEquals(source, tokens.getSource());
+        assertEquals(7, tokens.size());
+        assertEquals(Token.TokenType.KEYWORD, tokens.getType(0));
+        assertEquals(4, tokens.getStart(2));
+        assertEquals(1, tokens.getLength(2));
+        assertEquals("10", tokens.getData(4));
+        //the whitespace the lexer appends at the end of input
+        assertEquals(" ", tokens.getData(6));
+        assertEquals(source.length(), tokens.getStart(6));
+
+        List<Token> list = tokens.asList();
+        assertEquals(tokens.size(), list.size());
+        assertEquals(Token.TokenType.IDENTIFIER, list.get(2).getType());
+        assertEquals("x", list.get(2).getData());
+
+        TokenTable.Cursor cursor = tokens.cursor();
+        StringBuilder text = new StringBuilder();
+        while (cursor.next()) {
+            assertEquals(tokens.getType(cursor.getIndex()), cursor.getType());
+            assertEquals(tokens.getStart(cursor.getIndex()), cursor.getStart());
+            text.append(cursor.getData());
+        }
+        assertEquals(source + " ", text.toString());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void growsPastItsCapacity() {
+        TokenTable tokens = new TokenTable("", 1);
+        for (int i = 0; i < 5000; i++) {
+            tokens.token(Token.TokenType.values()[i % Token.TokenType.values().length], i, i % 7);
+        }
+        assertEquals(5000, tokens.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(Token.TokenType.values()[i % Token.TokenType.values().length], tokens.getType(i));
+            assertEquals(i, tokens.getStart(i));
+            assertEquals(i % 7, tokens.getLength(i));
+        }
+    }
+
+    @Test
+    public void indexOutOfBounds() {
+        TokenTable tokens = new TableLexer().tokenize("x");
+        try {
+            tokens.getType(tokens.size());
+            fail("Token after the last one");
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(e.getMessage().contains("size: 2"));
+        }
+        try {
+            tokens.cursor().getType();
+            fail("Cursor before its first token");
+        } catch (IndexOutOfBoundsException e) {
+            //next() was not called
+        }
+    }
+
+    @Test
+    public void symbolsOfIdentifiers() {
+        TokenTable tokens = new TableLexer().tokenize("a b a int");
+        try {
+            tokens.getSymbol(0);
+            fail("Symbol before interning");
+        } catch (IllegalStateException e) {
+            //not interned yet
+        }
+        SymbolTable symbols = new SymbolTable();
+        tokens.intern(symbols);
+        assertEquals(tokens.getSymbol(0), tokens.getSymbol(4));
+        assertEquals(2, symbols.size());
+        assertEquals(SymbolTable.NO_SYMBOL, tokens.getSymbol(1));
+        assertEquals(SymbolTable.NO_SYMBOL, tokens.getSymbol(6));
+    }
+}
@@ -0,0 +1,96 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Byte-level lexing: token offsets are byte offsets, token text is decoded from the bytes
+ */
+public class Utf8LexingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void offsetsAreBytes() {
+        //e acute is 2 bytes, the CJK char 3
+        TokenTable tokens = new TableLexer().tokenize(utf8("a\u00e9b = \"\u4e2d\";"));
+        assertToken(tokens, 0, Token.TokenType.IDENTIFIER, 0, 4, "a\u00e9b");
+        assertToken(tokens, 1, Token.TokenType.WHITESPACE, 4, 1, " ");
+        assertToken(tokens, 2, Token.TokenType.OPERATOR, 5, 1, "=");
+        assertToken(tokens, 4, Token.TokenType.STRING_LITERAL, 7, 5, "\"\u4e2d\"");
+        assertToken(tokens, 5, Token.TokenType.SEPARATOR, 12, 1, ";");
+    }
+
+    /**
+     * A supplementary char is two chars for the table, both at the offset of its 4 bytes
+     */
+    @Test
+    public void supplementaryChars() {
+        String source = "\"\ud83d\ude00\" x";
+        TokenTable tokens = new TableLexer().tokenize(utf8(source));
+        TokenTable chars = new TableLexer().tokenize(source);
+        assertEquals(chars.size(), tokens.size());
+        assertToken(tokens, 0, Token.TokenType.STRING_LITERAL, 0, 6, "\"\ud83d\ude00\"");
+        assertToken(tokens, 2, Token.TokenType.IDENTIFIER, 7, 1, "x");
+    }
+
+    /**
+     * Every byte of a malformed sequence is a replacement char
+     */
+    @Test
+    public void malformedBytes() {
+        ByteBuffer bytes = ByteBuffer.wrap(new byte[] {'a', (byte) 0xFF, 'b', ' ', (byte) 0xC3});
+        TokenTable tokens = new TableLexer().tokenize(bytes);
+        TokenTable chars = new TableLexer().tokenize("a\ufffdb \ufffd");
+        assertEquals(chars.size(), tokens.size());
+        for (int i = 0; i < chars.size(); i++) {
+            assertToken(tokens, i, chars.getType(i), chars.getStart(i), chars.getLength(i), chars.getData(i));
+        }
+    }
+
+    @Test
+    public void offsetsFromThePosition() {
+        ByteBuffer bytes = utf8("xx int y");
+        bytes.position(3);
+        TokenTable tokens = new TableLexer().tokenize(bytes);
+        assertToken(tokens, 0, Token.TokenType.KEYWORD, 0, 3, "int");
+        assertToken(tokens, 2, Token.TokenType.IDENTIFIER, 4, 1, "y");
+    }
+
+    @Test
+    public void mappedFile() throws IOException {
+        Path file = folder.newFile("A.java").toPath();
+        Files.write(file, "class \u00c4 {}\n".getBytes(StandardCharsets.UTF_8));
+        TokenTable tokens = new TableLexer().tokenize(file);
+        assertToken(tokens, 2, Token.TokenType.IDENTIFIER, 6, 2, "\u00c4");
+        assertToken(tokens, 4, Token.TokenType.SEPARATOR, 9, 1, "{");
+    }
+
+    @Test
+    public void sourceOfByteOffsets() {
+        Utf8Source source = new Utf8Source(utf8("a\u00e9"));
+        assertEquals(3, source.length());
+        assertEquals('a', source.charAt(0));
+        assertEquals('\ufffd', source.charAt(1));
+        assertEquals("\u00e9", source.subSequence(1, 3).toString());
+        assertEquals("a\u00e9", source.toString());
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertToken(TokenTable tokens, int index, Token.TokenType type, int start, int length, String data) {
+        assertEquals("Token " + index, type, tokens.getType(index));
+        assertEquals("Token " + index, start, tokens.getStart(index));
+        assertEquals("Token " + index, length, tokens.getLength(index));
+        assertEquals("Token " + index, data, tokens.getData(index));
+    }
+}